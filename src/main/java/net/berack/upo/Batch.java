@@ -0,0 +1,136 @@
+package net.berack.upo;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A group of changes to a {@link Graph} that are kept aside and applied all together with {@link #commit()}.<br>
+ * The changes are sorted and merged while they are buffered, so only the last change of a vertex or of an edge is kept,
+ * and then they are applied in one pass: first the removed vertices, then the added ones and at last all the edges.
+ * In a {@link GraphUndirected} the two directions of an edge are the same edge, so they replace each other.<br>
+ * The vertices and edges are checked only at the commit, since they can refer to vertices added in the same batch.
+ * If something is wrong, like a vertex that the graph refuses to add, then an exception is thrown and the graph is left as it was.<br>
+ * After the commit the batch is empty and can be used again.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class Batch<V> {
+
+    private final Graph<V> graph;
+    final Set<V> removed = Graph.getDefaultSet();
+    final Set<V> added = Graph.getDefaultSet();
+    final Map<V, Map<V, Integer>> edges = Graph.getDefaultMap();
+
+    /**
+     * Create a new batch for the graph.
+     *
+     * @param graph the graph where the changes will be applied
+     */
+    Batch(Graph<V> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Add the vertex to the graph, if it isn't already there.
+     *
+     * @param vertex the vertex to add
+     * @return this batch
+     * @throws NullPointerException if the vertex is null
+     * @see Graph#addIfAbsent(Object)
+     */
+    public Batch<V> add(V vertex) throws NullPointerException {
+        graph.check(vertex);
+        added.add(vertex);
+        return this;
+    }
+
+    /**
+     * Remove the vertex from the graph, with all its edges and marks.<br>
+     * All the changes to the edges of this vertex made before in this batch are discarded.
+     *
+     * @param vertex the vertex to remove
+     * @return this batch
+     * @throws NullPointerException if the vertex is null
+     * @see Graph#remove(Object)
+     */
+    public Batch<V> remove(V vertex) throws NullPointerException {
+        graph.check(vertex);
+        edges.remove(vertex);
+        edges.values().forEach(adj -> adj.remove(vertex));
+        if (!added.remove(vertex) || graph.contains(vertex))
+            removed.add(vertex);
+        return this;
+    }
+
+    /**
+     * Add an edge between the two vertices, or change its weight if it already exists.
+     *
+     * @param vertex1 the source vertex
+     * @param vertex2 the destination vertex
+     * @param weight  the weight of the edge
+     * @return this batch
+     * @throws NullPointerException if one of the vertices is null
+     * @see Graph#addEdge(Object, Object, int)
+     */
+    public Batch<V> addEdge(V vertex1, V vertex2, int weight) throws NullPointerException {
+        graph.check(vertex1, vertex2);
+        if (graph instanceof GraphUndirected) {
+            Map<V, Integer> opposite = edges.get(vertex2);
+            if (opposite != null && opposite.remove(vertex1) != null && opposite.isEmpty())
+                edges.remove(vertex2);
+        }
+        edges.computeIfAbsent(vertex1, _ -> Graph.getDefaultMap()).put(vertex2, weight);
+        return this;
+    }
+
+    /**
+     * Remove the edge between the two vertices.
+     *
+     * @param vertex1 the source vertex
+     * @param vertex2 the destination vertex
+     * @return this batch
+     * @throws NullPointerException if one of the vertices is null
+     * @see Graph#removeEdge(Object, Object)
+     */
+    public Batch<V> removeEdge(V vertex1, V vertex2) throws NullPointerException {
+        return addEdge(vertex1, vertex2, Graph.NO_EDGE);
+    }
+
+    /**
+     * Tells how many changes are buffered in this batch.
+     *
+     * @return the number of vertices and edges changed
+     */
+    public int size() {
+        int size = removed.size() + added.size();
+        for (Map<V, Integer> adj : edges.values())
+            size += adj.size();
+        return size;
+    }
+
+    /**
+     * Apply all the buffered changes to the graph and empty this batch.
+     *
+     * @throws IllegalArgumentException if a removed vertex or a vertex of an edge will not be in the graph
+     */
+    public void commit() throws IllegalArgumentException {
+        try {
+            graph.apply(this);
+        } finally {
+            removed.clear();
+            added.clear();
+            edges.clear();
+        }
+    }
+
+    /**
+     * Tells if the vertex will be in the graph after the vertices of this batch are applied.
+     *
+     * @param vertex the vertex
+     * @return true if the vertex will be in the graph
+     */
+    boolean willContain(V vertex) {
+        return added.contains(vertex) || (!removed.contains(vertex) && graph.contains(vertex));
+    }
+}
@@ -0,0 +1,158 @@
+package net.berack.upo;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+
+import net.berack.upo.graph.Edge;
+
+/**
+ * A view of a {@link GraphDirected} that shows only the vertices accepted by a filter, and the edges between them.<br>
+ * Nothing is copied: every method asks the base graph and hides what the filter rejects, so the changes of
+ * the base graph are seen by the view. The changes made through the view are made to the base graph, but adding
+ * a vertex rejected by the filter throws an exception, like adding out of range in a {@link java.util.SortedMap#subMap}.<br>
+ * Since nothing is cached, {@link #size()} and {@link #numberOfEdges()} scan the base graph.
+ * Only the marks are of the view itself, so the view starts without marks.<br>
+ * Use {@link #materialize()} for getting an independent copy.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class FilteredGraph<V> extends GraphDirected<V> {
+
+    private final GraphDirected<V> base;
+    private final Predicate<? super V> filter;
+
+    /**
+     * Create a view of the graph with only the vertices accepted by the filter.<br>
+     * The filter should give always the same answer for the same vertex.
+     *
+     * @param base   the graph to filter
+     * @param filter the filter of the vertices
+     * @throws NullPointerException if one of the parameters is null
+     */
+    public FilteredGraph(GraphDirected<V> base, Predicate<? super V> filter) throws NullPointerException {
+        check(base, filter);
+        this.base = base;
+        this.filter = filter;
+    }
+
+    /**
+     * Copy this view in a new graph of the same type of the base graph, with the marks of the view.
+     *
+     * @return a copy of the vertices and edges shown by this view
+     */
+    public GraphDirected<V> materialize() {
+        Set<V> vertices = vertices();
+        GraphDirected<V> copy = (GraphDirected<V>) base.getNewInstance(vertices, edgesAmong(vertices));
+
+        for (V vertex : vertices)
+            for (Object mark : getMarks(vertex))
+                copy.mark(vertex, mark);
+        return copy;
+    }
+
+    @Override
+    protected Graph<V> getNewInstance() {
+        return base.getNewInstance();
+    }
+
+    @Override
+    protected Graph<V> getNewInstance(Collection<V> vertices, Collection<Edge<V>> edges) {
+        return base.getNewInstance(vertices, edges);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return StreamSupport.stream(base.spliterator(), false).filter(filter).iterator();
+    }
+
+    @Override
+    public boolean contains(V vertex) throws NullPointerException {
+        return base.contains(vertex) && filter.test(vertex);
+    }
+
+    @Override
+    public void add(V vertex) throws NullPointerException, IllegalArgumentException {
+        check(vertex);
+        checkAdd(vertex);
+        base.add(vertex);
+    }
+
+    @Override
+    protected boolean readsInParallel() {
+        return base.readsInParallel();
+    }
+
+    @Override
+    protected void checkAdd(V vertex) throws IllegalArgumentException {
+        if (!filter.test(vertex))
+            throw new IllegalArgumentException(vertex.toString());
+        base.checkAdd(vertex);
+    }
+
+    @Override
+    public void remove(V vertex) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex);
+        unMark(vertex);
+        base.remove(vertex);
+    }
+
+    @Override
+    protected void removeVertices(Set<V> vertices) {
+        base.removeAll(vertices);
+    }
+
+    @Override
+    public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex1, vertex2);
+        return base.getWeight(vertex1, vertex2);
+    }
+
+    @Override
+    public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex1, vertex2);
+        return base.addEdge(vertex1, vertex2, weight);
+    }
+
+    @Override
+    public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex);
+        return filtered(base.getChildren(vertex));
+    }
+
+    @Override
+    public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex);
+        return filtered(base.getAncestors(vertex));
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (V vertex : base)
+            if (filter.test(vertex))
+                size++;
+        return size;
+    }
+
+    @Override
+    public int numberOfEdges() {
+        int edges = 0;
+        for (V vertex : this)
+            for (V child : base.getChildren(vertex))
+                if (filter.test(child))
+                    edges++;
+        return edges;
+    }
+
+    private Set<V> filtered(Set<V> vertices) {
+        Set<V> accepted = getDefaultSet();
+        for (V vertex : vertices)
+            if (filter.test(vertex))
+                accepted.add(vertex);
+        return accepted;
+    }
+}
@@ -2,12 +2,15 @@ package net.berack.upo;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import net.berack.upo.graph.Edge;
 import net.berack.upo.graph.Vertex;
+import net.berack.upo.graph.VisitBudget;
 import net.berack.upo.graph.VisitStrategy;
 import net.berack.upo.graph.visit.BFS;
 import net.berack.upo.graph.visit.Dijkstra;
+import net.berack.upo.graph.visit.ParallelBFS;
 import net.berack.upo.graph.visit.VisitInfo;
 
 /**
@@ -26,10 +29,14 @@ public abstract class Graph<V> implements Iterable<V> {
     public final static String NOT_CONNECTED = "The source vertex doesn't have a path that reach the destination";
     public final static String PARAM_NULL = "The parameter must not be null";
     public final static String VERTEX_NOT_CONTAINED = "The vertex must be contained in the graph";
+    /**
+     * Number of vertices from which {@link #subGraph(Object, int)} visits the graph with a {@link ParallelBFS}
+     */
+    public final static int PARALLEL_SUBGRAPH = 1 << 14;
     public final static Comparator<Object> OBJECT_COMPARATOR = new Comparator<Object>() {
         @Override
         public int compare(Object o1, Object o2) {
-            return o1.hashCode() - o2.hashCode();
+            return Integer.compare(o1.hashCode(), o2.hashCode());
         }
     };
 
@@ -64,6 +71,12 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     private final Map<V, Set<Object>> markers = getDefaultMap();
 
+    /**
+     * Map that contains the marker as key and a set of all the vertices marked with it.<br>
+     * It is the inverse of {@link #markers} and it is kept in sync with it.
+     */
+    private final Map<Object, Set<V>> marked = getDefaultMap();
+
     /**
      * Get a new instance of this graph.
      *
@@ -71,6 +84,64 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     protected abstract Graph<V> getNewInstance();
 
+    /**
+     * Get a new instance of this graph with all the vertices and edges passed.<br>
+     * This is used for making copies of this graph, so the edges are supposed to link only the vertices passed.
+     * By default it fills a new instance with {@link #bulkLoad(Collection, Collection)}, but the immutable
+     * implementations must override it for building the copy all at once.
+     *
+     * @param vertices the vertices of the new graph
+     * @param edges    the edges between the vertices
+     * @return A new instance of the graph with the vertices and edges
+     */
+    protected Graph<V> getNewInstance(Collection<V> vertices, Collection<Edge<V>> edges) {
+        Graph<V> graph = getNewInstance();
+        graph.bulkLoad(vertices, edges);
+        return graph;
+    }
+
+    /**
+     * Fill this graph, that is supposed to be empty, with all the vertices and edges passed.<br>
+     * This is used for making copies of other graphs, so the edges are supposed to link only
+     * the vertices passed and no check is made on them.<br>
+     * By default it simply adds them one by one, but the implementations should override it
+     * for sizing their structures only once and for filling them in parallel.
+     *
+     * @param vertices the vertices to add
+     * @param edges    the edges between the vertices
+     */
+    protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+        addAll(vertices);
+        for (Edge<V> edge : edges)
+            addEdge(edge.getSource(), edge.getDestination(), edge.getWeight());
+    }
+
+    /**
+     * Tells if the methods of this class can read this graph from many threads at the same time.<br>
+     * The graphs that keep a lock for the thread that is using them must return false, since the other
+     * threads would wait for that same lock; the views must return what the graph they show returns.
+     *
+     * @return true if the graph can be read in parallel
+     */
+    protected boolean readsInParallel() {
+        return true;
+    }
+
+    /**
+     * Get all the edges of this graph that link two of the vertices passed.<br>
+     * The vertices are read in parallel if {@link #readsInParallel()}, so the graph must not be modified in the meantime.
+     *
+     * @param vertices the vertices of this graph
+     * @return a list with the edges found
+     */
+    protected final List<Edge<V>> edgesAmong(Set<V> vertices) {
+        return (readsInParallel() ? vertices.parallelStream() : vertices.stream())
+                .flatMap(src -> getChildren(src).stream()
+                        .filter(vertices::contains)
+                        .map(dest -> new Edge<>(src, dest, getWeight(src, dest))))
+                .toList();
+    }
+
     /**
      * Check if the vertex passed is contained in the graph or not.<br>
      * The vertex V1 is contained in the graph G, if and only if:<br>
@@ -148,7 +219,40 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public void removeAll() {
         unMarkAll();
-        for (V vertex : vertices())
+        removeVertices(vertices());
+    }
+
+    /**
+     * Remove all the vertices contained in the collection from the graph, with all their edges and marks.<br>
+     * Null vertices and vertices that aren't in the graph will be ignored.<br>
+     * This is much faster than removing the vertices one by one, since the graph is updated only once.
+     *
+     * @param vertices a collection of the vertices to remove
+     * @throws NullPointerException if the collection is null
+     */
+    public final void removeAll(Collection<V> vertices) throws NullPointerException {
+        check(vertices);
+        Set<V> toRemove = getDefaultSet();
+        for (V vertex : vertices)
+            if (vertex != null && contains(vertex))
+                toRemove.add(vertex);
+
+        if (toRemove.isEmpty())
+            return;
+        for (V vertex : toRemove)
+            unMark(vertex);
+        removeVertices(toRemove);
+    }
+
+    /**
+     * Remove all the vertices passed, that are all contained in the graph and have no marks.<br>
+     * By default it removes them one by one, but the implementations should override it for
+     * updating their structures only once.
+     *
+     * @param vertices the vertices to remove
+     */
+    protected void removeVertices(Set<V> vertices) {
+        for (V vertex : vertices)
             remove(vertex);
     }
 
@@ -281,7 +385,91 @@ public abstract class Graph<V> implements Iterable<V> {
      * @throws NullPointerException if the set is null
      */
     public void addAllEdges(Collection<Edge<V>> edges) throws NullPointerException {
-        edges.forEach(edge -> addEdgeAndVertices(edge.getSource(), edge.getDestination(), edge.getWeight()));
+        check(edges);
+        batch(batch -> {
+            for (Edge<V> edge : edges)
+                if (edge != null)
+                    batch.add(edge.getSource())
+                            .add(edge.getDestination())
+                            .addEdge(edge.getSource(), edge.getDestination(), edge.getWeight());
+        });
+    }
+
+    /**
+     * Start a new group of changes for this graph.<br>
+     * Nothing is changed until {@link Batch#commit()} is called, then all the changes are applied in one pass.
+     *
+     * @return a new empty batch for this graph
+     */
+    public final Batch<V> beginBatch() {
+        return new Batch<>(this);
+    }
+
+    /**
+     * Make all the changes passed in a single batch, then commit them.<br>
+     * This is much faster than adding the vertices and the edges one by one, since they are checked and applied once.
+     * If the changes throw an exception, nothing is applied to the graph.
+     *
+     * @param changes the changes to the graph
+     * @throws NullPointerException     if the changes are null, or if one of the changes has a null vertex
+     * @throws IllegalArgumentException if a removed vertex or a vertex of an edge will not be in the graph
+     * @see Batch
+     */
+    public final void batch(Consumer<Batch<V>> changes) throws NullPointerException, IllegalArgumentException {
+        check(changes);
+        Batch<V> batch = beginBatch();
+        changes.accept(batch);
+        batch.commit();
+    }
+
+    /**
+     * Apply the changes of the batch to this graph, after checking them.<br>
+     * The graphs that lock must override it for checking and applying all the changes under the same lock.
+     *
+     * @param batch the changes to apply
+     * @throws IllegalArgumentException if a removed vertex or a vertex of an edge will not be in the graph
+     */
+    void apply(Batch<V> batch) throws IllegalArgumentException {
+        for (V vertex : batch.removed)
+            if (!contains(vertex))
+                throw new IllegalArgumentException(VERTEX_NOT_CONTAINED);
+        for (V vertex : batch.added)
+            if (!contains(vertex))
+                checkAdd(vertex);
+        batch.edges.forEach((source, adj) -> {
+            if (!batch.willContain(source))
+                throw new IllegalArgumentException(VERTEX_NOT_CONTAINED);
+            for (V destination : adj.keySet())
+                if (!batch.willContain(destination))
+                    throw new IllegalArgumentException(VERTEX_NOT_CONTAINED);
+        });
+
+        removeAll(batch.removed);
+        addAll(batch.added);
+        updateEdges(batch.edges);
+    }
+
+    /**
+     * Check if the vertex can be added to this graph, without adding it.<br>
+     * It is used for checking a {@link Batch} before applying any of its changes, so the implementations
+     * that refuse some vertices in {@link #add(Object)} must override it with the same checks.
+     *
+     * @param vertex the vertex to check
+     * @throws IllegalArgumentException if the vertex cannot be added
+     */
+    protected void checkAdd(V vertex) throws IllegalArgumentException {
+    }
+
+    /**
+     * Set the weight of all the edges passed, grouped by their source vertex.<br>
+     * A weight of {@link #NO_EDGE} removes the edge.<br>
+     * All the vertices are already checked, so the implementations should override this method for
+     * finding every source vertex only once and for skipping the checks of {@link #addEdge(Object, Object, int)}.
+     *
+     * @param edges a map from the source vertices to their destination and weight
+     */
+    protected void updateEdges(Map<V, Map<V, Integer>> edges) {
+        edges.forEach((source, adj) -> adj.forEach((destination, weight) -> addEdge(source, destination, weight)));
     }
 
     /**
@@ -367,7 +555,7 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public final Set<Object> marks() {
         Set<Object> ret = getDefaultSet();
-        markers.forEach((_, set) -> ret.addAll(set));
+        ret.addAll(marked.keySet());
         return ret;
     }
 
@@ -385,7 +573,8 @@ public abstract class Graph<V> implements Iterable<V> {
         check(mark);
         checkVert(vertex);
         Set<Object> marks = markers.computeIfAbsent(vertex, _ -> getDefaultSet());
-        marks.add(mark);
+        if (marks.add(mark))
+            marked.computeIfAbsent(mark, _ -> getDefaultSet()).add(vertex);
     }
 
     /**
@@ -400,7 +589,8 @@ public abstract class Graph<V> implements Iterable<V> {
         check(mark);
         checkVert(vertex);
         markers.computeIfPresent(vertex, (_, set) -> {
-            set.remove(mark);
+            if (set.remove(mark))
+                removeFromIndex(mark, vertex);
             if (set.size() > 0)
                 return set;
             return null;
@@ -417,10 +607,10 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public final void unMark(V vertex) throws NullPointerException, IllegalArgumentException {
         checkVert(vertex);
-        try {
-            markers.remove(vertex).clear();
-        } catch (Exception ignore) {
-        }
+        Set<Object> marks = markers.remove(vertex);
+        if (marks != null)
+            for (Object mark : marks)
+                removeFromIndex(mark, vertex);
     }
 
     /**
@@ -434,17 +624,15 @@ public abstract class Graph<V> implements Iterable<V> {
     public final Set<V> getMarkedWith(Object mark) throws NullPointerException {
         check(mark);
         Set<V> vertices = getDefaultSet();
-        markers.forEach((v, set) -> {
-            if (set.contains(mark))
-                vertices.add(v);
-        });
+        vertices.addAll(marked.getOrDefault(mark, Collections.emptySet()));
         return vertices;
     }
 
     /**
      * Get all the marker of this vertex.<br>
      * If the vertex doesn't have any mark, then it will return an empty set.<br>
-     * Note: modifying the returned Set affect the marker of the vertex.
+     * Note: the returned Set follows the marks of the vertex, even after they are all removed
+     * and the vertex is marked again, but it can't be modified.
      *
      * @param vertex the vertex
      * @return a set of all the mark to the vertex or an empty Set if none
@@ -453,7 +641,26 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public final Set<Object> getMarks(V vertex) throws NullPointerException, IllegalArgumentException {
         checkVert(vertex);
-        return markers.getOrDefault(vertex, getDefaultSet());
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Object> iterator() {
+                return Collections.unmodifiableSet(marks()).iterator();
+            }
+
+            @Override
+            public int size() {
+                return marks().size();
+            }
+
+            @Override
+            public boolean contains(Object mark) {
+                return marks().contains(mark);
+            }
+
+            private Set<Object> marks() {
+                return markers.getOrDefault(vertex, Collections.emptySet());
+            }
+        };
     }
 
     /**
@@ -464,13 +671,13 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public final void unMarkAll(Object mark) throws NullPointerException {
         check(mark);
-        Set<V> toRemove = getDefaultSet();
-        markers.forEach((v, set) -> {
-            set.remove(mark);
-            if (set.size() == 0)
-                toRemove.add(v);
-        });
-        markers.keySet().removeAll(toRemove);
+        Set<V> vertices = marked.remove(mark);
+        if (vertices != null)
+            for (V vertex : vertices)
+                markers.computeIfPresent(vertex, (_, set) -> {
+                    set.remove(mark);
+                    return set.isEmpty() ? null : set;
+                });
     }
 
     /**
@@ -480,6 +687,21 @@ public abstract class Graph<V> implements Iterable<V> {
     public final void unMarkAll() {
         markers.values().forEach(Set::clear);
         markers.clear();
+        marked.values().forEach(Set::clear);
+        marked.clear();
+    }
+
+    /**
+     * Remove the vertex from the vertices marked with the mark, and forget the mark if no vertex has it anymore.
+     *
+     * @param mark   the mark
+     * @param vertex the vertex that is no longer marked
+     */
+    private void removeFromIndex(Object mark, V vertex) {
+        marked.computeIfPresent(mark, (_, set) -> {
+            set.remove(vertex);
+            return set.isEmpty() ? null : set;
+        });
     }
 
     /**
@@ -548,7 +770,9 @@ public abstract class Graph<V> implements Iterable<V> {
      * If the depth is 1 then only the source and it's children will be in the sub-graph.<br>
      * If the depth is 2 then only the source, it's children and it's children of it's children will be in the sub-graph.<br>
      * And so on.<br>
-     * Of course the sub-graph will contain the edges that link the vertices, but only the one selected.
+     * Of course the sub-graph will contain the edges that link the vertices, but only the one selected.<br>
+     * If the graph has at least {@link #PARALLEL_SUBGRAPH} vertices and {@link #readsInParallel()}, the visit is a {@link ParallelBFS},
+     * so the graph must not be modified in the meantime.
      *
      * @param source the source vertex
      * @param depth  the maximum depth (must be a positive number, if &lt;=0 a graph containing only the source is returned)
@@ -558,16 +782,13 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public final Graph<V> subGraph(V source, int depth) throws NullPointerException, IllegalArgumentException {
         checkVert(source);
-        Graph<V> sub = getNewInstance();
         Set<V> vertices = getDefaultSet();
-        new BFS<V>().setMaxDepth(Math.max(depth, 0)).visit(this, source, vertices::add);
+        VisitStrategy<V> strategy = size() >= PARALLEL_SUBGRAPH && readsInParallel()
+                ? new ParallelBFS<V>().setMaxDepth(Math.max(depth, 0)).setTrackInfo(false)
+                : new BFS<V>().setMaxDepth(Math.max(depth, 0)).setTrackInfo(false);
+        strategy.visit(this, source, vertices::add);
 
-        sub.addAll(vertices);
-        for (V src : vertices)
-            for (V dest : getChildren(src))
-                if (sub.contains(dest))
-                    sub.addEdge(src, dest, this.getWeight(src, dest));
-        return sub;
+        return getNewInstance(vertices, edgesAmong(vertices));
     }
 
     /**
@@ -581,7 +802,6 @@ public abstract class Graph<V> implements Iterable<V> {
      * @return a sub-graph of the current graph
      */
     public final Graph<V> subGraph(Object... marker) {
-        final Graph<V> sub = getNewInstance();
         final Set<V> allVertices = getDefaultSet();
         final Set<Object> allMarkers = getDefaultSet();
         
@@ -591,27 +811,43 @@ public abstract class Graph<V> implements Iterable<V> {
                     allMarkers.add(marker[i]);
         
         if(allMarkers.size() > 0)
-            markers.forEach((v, set) -> {
-                if (!Collections.disjoint(allMarkers, set))
-                    allVertices.add(v);
-            });
+            for (Object mark : allMarkers)
+                allVertices.addAll(marked.getOrDefault(mark, Collections.emptySet()));
         else {
             Set<V> toAdd = vertices();
             toAdd.removeAll(markers.keySet());
             allVertices.addAll(toAdd);
         }
 
-        sub.addAll(allVertices);
-        for (V src : sub.vertices()) {
+        final Graph<V> sub = getNewInstance(allVertices, edgesAmong(allVertices));
+        for (V src : allVertices)
             for (Object mark : getMarks(src))
                 sub.mark(src, mark);
-            for (V dest : getChildren(src))
-                if (sub.contains(dest))
-                    sub.addEdge(src, dest, getWeight(src, dest));
-        }
         return sub;
     }
 
+    /**
+     * Get a filter that accepts the vertices marked with at least one of the markers passed, with the same rules of {@link #subGraph(Object...)}.<br>
+     * The filter reads the marks of this graph every time it is used, so it follows their changes.
+     *
+     * @param marker one or more markers
+     * @return a filter for the vertices of this graph
+     */
+    protected final Predicate<V> markedWith(Object... marker) {
+        final Set<Object> allMarkers = getDefaultSet();
+        if (marker != null)
+            for (Object mark : marker)
+                if (mark != null)
+                    allMarkers.add(mark);
+
+        if (allMarkers.isEmpty())
+            return vertex -> !markers.containsKey(vertex);
+        return vertex -> {
+            Set<Object> marks = markers.get(vertex);
+            return marks != null && !Collections.disjoint(allMarkers, marks);
+        };
+    }
+
     /**
      * Get the minimum path from the source vertex to the destination vertex.<br>
      * If the source vertex can't reach the destination, then an exception is thrown.
@@ -641,7 +877,26 @@ public abstract class Graph<V> implements Iterable<V> {
      */
     public final Map<V, List<Edge<V>>> distance(V source) throws NullPointerException, IllegalArgumentException {
         checkVert(source);
-        Dijkstra<V> dijkstra = new Dijkstra<>();
+        Dijkstra<V> dijkstra = new Dijkstra<V>().setTrackInfo(false);
+        dijkstra.visit(this, source, null);
+        return dijkstra.getLastDistance();
+    }
+
+    /**
+     * Get the minimum path from the source vertex to all the possible reachable vertices, within a budget.<br>
+     * If the budget runs out (see {@link VisitBudget#isExhausted()}) the map contains only the vertices
+     * whose minimum path has already been found.
+     *
+     * @param source the vertex where to start
+     * @param budget the budget of the visit
+     * @return a map containing the reachable vertices found and the minimum path to reach them
+     * @throws NullPointerException     if one of the parameter is null
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     */
+    public final Map<V, List<Edge<V>>> boundedDistance(V source, VisitBudget budget) throws NullPointerException, IllegalArgumentException {
+        checkVert(source);
+        check(budget);
+        Dijkstra<V> dijkstra = new Dijkstra<V>().setTrackInfo(false).setBudget(budget);
         dijkstra.visit(this, source, null);
         return dijkstra.getLastDistance();
     }
@@ -2,8 +2,10 @@ package net.berack.upo;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitBudget;
 import net.berack.upo.graph.VisitSCC;
 import net.berack.upo.graph.VisitTopological;
 import net.berack.upo.graph.visit.Tarjan;
@@ -147,13 +149,46 @@ public abstract class GraphDirected<V> extends Graph<V> {
      * @return a transposed graph of this instance
      */
     public final GraphDirected<V> transpose() {
-        GraphDirected<V> transposed = (GraphDirected<V>) getNewInstance();
-        transposed.addAll(vertices());
+        Set<V> vertices = vertices();
+        List<Edge<V>> edges = (readsInParallel() ? vertices.parallelStream() : vertices.stream())
+                .flatMap(vertex -> getChildren(vertex).stream()
+                        .map(child -> new Edge<>(child, vertex, getWeight(vertex, child))))
+                .toList();
 
-        for (V vertex : transposed)
-            for (V child : getChildren(vertex))
-                transposed.addEdge(child, vertex, getWeight(vertex, child));
-        return transposed;
+        return (GraphDirected<V>) getNewInstance(vertices, edges);
+    }
+
+    /**
+     * Get a view of this graph with all the edges inverted in orientation, without copying anything.<br>
+     * See {@link TransposedGraph} for how the view behaves.
+     *
+     * @return a transposed view of this instance
+     */
+    public final TransposedGraph<V> transposeView() {
+        return new TransposedGraph<>(this);
+    }
+
+    /**
+     * Get a view of this graph with only the vertices accepted by the filter, without copying anything.<br>
+     * See {@link FilteredGraph} for how the view behaves.
+     *
+     * @param filter the filter of the vertices
+     * @return a filtered view of this instance
+     * @throws NullPointerException if the filter is null
+     */
+    public final FilteredGraph<V> subGraphView(Predicate<? super V> filter) throws NullPointerException {
+        return new FilteredGraph<>(this, filter);
+    }
+
+    /**
+     * Get a view of this graph with only the vertices marked with the selected markers, without copying anything.<br>
+     * The vertices are chosen like in {@link #subGraph(Object...)}, but the view follows the changes of the marks of this graph.
+     *
+     * @param marker one or more markers
+     * @return a filtered view of this instance
+     */
+    public final FilteredGraph<V> subGraphView(Object... marker) {
+        return new FilteredGraph<>(this, markedWith(marker));
     }
 
     /**
@@ -185,6 +220,21 @@ public abstract class GraphDirected<V> extends Graph<V> {
         return visit.getSCC();
     }
 
+    /**
+     * The strongly connected components of the graph, found within a budget.<br>
+     * If the budget runs out (see {@link VisitBudget#isExhausted()}) only the components found so far are returned.
+     *
+     * @param budget the budget of the visit
+     * @return a Set containing the strongly connected components found
+     * @throws NullPointerException if the budget is null
+     */
+    public final Set<Set<V>> stronglyConnectedComponents(VisitBudget budget) throws NullPointerException {
+        check(budget);
+        VisitSCC<V> visit = new Tarjan<V>().setBudget(budget);
+        visit.visit(this, null, null);
+        return visit.getSCC();
+    }
+
     @Override
     public Set<Edge<V>> edgesOf(V vertex) throws NullPointerException, IllegalArgumentException {
         Set<Edge<V>> edges = getEdgesIn(vertex);
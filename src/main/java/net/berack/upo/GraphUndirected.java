@@ -1,9 +1,15 @@
 package net.berack.upo;
 
 import java.util.Set;
+import java.util.function.Predicate;
 
 import net.berack.upo.graph.Edge;
 import net.berack.upo.graph.VisitMST;
+import net.berack.upo.graph.visit.Boruvka;
+import net.berack.upo.graph.visit.Components;
+import net.berack.upo.graph.visit.DynamicMST;
+import net.berack.upo.graph.visit.FilterKruskal;
+import net.berack.upo.graph.visit.Kruskal;
 import net.berack.upo.graph.visit.Prim;
 
 /**
@@ -17,25 +23,99 @@ import net.berack.upo.graph.visit.Prim;
 public abstract class GraphUndirected<V> extends Graph<V> {
 
     /**
-     * The connected components of an arbitrary undirected graph form a partition into subgraphs that are themselves connected.
+     * The connected components of an arbitrary undirected graph form a partition into subgraphs that are themselves connected.<br>
+     * The components are computed by {@link Components}.
      *
-     * @return a Set containing the strongly connected components
+     * @return a Set containing the connected components
      */
     public Set<Set<V>> connectedComponents() {
-        return null;
+        Components<V> visit = new Components<>();
+        visit.visit(this, null, null);
+        return visit.getCC();
     }
 
     /**
-     * minimum spanning forest or minimum spamming tree of the graph
+     * The connected components of the graph as a compact labeling.<br>
+     * The i-th value is the component of the i-th vertex returned by the iterator of the graph,
+     * and the components are numbered from 0 in the order in which they are found.<br>
+     * This way no set is created, so it's the better choice for huge graphs.
+     *
+     * @param parallelism in how many chunks the edges are split for merging them in parallel
+     * @return the labels of the components
+     * @throws IllegalArgumentException if the parallelism is less than 1
+     */
+    public int[] connectedComponentIds(int parallelism) throws IllegalArgumentException {
+        Components<V> visit = new Components<V>().setParallelism(parallelism);
+        visit.visit(this, null, null);
+        return visit.getComponentIds();
+    }
+
+    /**
+     * Get a view of this graph with only the vertices accepted by the filter, without copying anything.<br>
+     * See {@link FilteredUndGraph} for how the view behaves.
+     *
+     * @param filter the filter of the vertices
+     * @return a filtered view of this instance
+     * @throws NullPointerException if the filter is null
+     */
+    public final FilteredUndGraph<V> subGraphView(Predicate<? super V> filter) throws NullPointerException {
+        return new FilteredUndGraph<>(this, filter);
+    }
+
+    /**
+     * Get a view of this graph with only the vertices marked with the selected markers, without copying anything.<br>
+     * The vertices are chosen like in {@link #subGraph(Object...)}, but the view follows the changes of the marks of this graph.
+     *
+     * @param marker one or more markers
+     * @return a filtered view of this instance
+     */
+    public final FilteredUndGraph<V> subGraphView(Object... marker) {
+        return new FilteredUndGraph<>(this, markedWith(marker));
+    }
+
+    /**
+     * minimum spanning forest or minimum spamming tree of the graph<br>
+     * On dense graphs, with at least a quarter of all the possible edges, it uses {@link Prim},
+     * since sorting all the edges costs more than growing the trees with a heap.
+     * Otherwise it uses {@link FilterKruskal}.
      *
      * @return A Set of edges representing the M.S.F.
      */
     public Set<Edge<V>> minimumSpanningForest() {
-        VisitMST<V> visit = new Prim<>();
-        visit.visit(this, iterator().next(), null);
-        return visit.getMST();
+        long vertices = size();
+        boolean dense = 4L * numberOfEdges() >= vertices * (vertices - 1) / 2;
+
+        return minimumSpanningForest(dense ? new Prim<>() : new FilterKruskal<>());
     }
 
+    /**
+     * minimum spanning forest or minimum spamming tree of the graph, computed with the strategy passed.<br>
+     * For example {@link Boruvka} can be used for using all the cores on very large graphs.
+     *
+     * @param strategy the algorithm used for the M.S.F.
+     * @return A Set of edges representing the M.S.F.
+     * @throws NullPointerException if the strategy is null
+     */
+    public Set<Edge<V>> minimumSpanningForest(VisitMST<V> strategy) throws NullPointerException {
+        check(strategy);
+        strategy.visit(this, null, null);
+        return strategy.getMST();
+    }
+
+    /**
+     * Get the edge between the two vertices, with the same orientation that it has in {@link #edges()}.<br>
+     * The algorithms that break the ties between the weights by the edges themselves, like {@link DynamicMST},
+     * need it for getting the same result of {@link Kruskal}, so the implementations must find it without
+     * scanning all the edges.
+     *
+     * @param vertex1 a vertex of the graph
+     * @param vertex2 a vertex of the graph
+     * @return the edge, or null if there is no edge between the two vertices
+     * @throws NullPointerException     if one of the parameter is null
+     * @throws IllegalArgumentException if one of the vertex is not contained in the graph
+     */
+    public abstract Edge<V> getEdge(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException;
+
     @Override
     public Set<Edge<V>> edgesOf(V vertex) throws NullPointerException, IllegalArgumentException {
         checkVert(vertex);
@@ -0,0 +1,322 @@
+package net.berack.upo;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import net.berack.upo.graph.Edge;
+
+/**
+ * A decorator that makes any {@link GraphDirected} safe to share between many threads, using a {@link StampedLock}.<br>
+ * Every query takes the read lock, so the readers run in parallel, and every change takes the write lock.
+ * A {@link Batch} is checked and applied under a single write lock, so nobody sees it half done.<br>
+ * Every method locks on its own, so the algorithms like {@link #visit(Object, net.berack.upo.graph.VisitStrategy, Consumer)}
+ * or {@link #distance(Object, Object)} see the changes made while they run. For running them on a graph that
+ * doesn't change use {@link #read(Function)}, and for making many changes at once use {@link #write(Consumer)}.<br>
+ * The lock is held by the thread that took it, so the methods of the graph like {@link #transpose()} or
+ * {@link #subGraph(Object, int)} read this graph from that thread only, and the strategies that read the graph
+ * from many threads, like {@link net.berack.upo.graph.visit.ParallelBFS}, must not be run from inside
+ * {@link #read(Function)} or {@link #write(Consumer)}.<br>
+ * The base graph must not be used directly while it is decorated.
+ * The marks are of the decorator itself and they are not thread safe, as in every other graph.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class LockedGraph<V> extends GraphDirected<V> {
+
+    private static final int NONE = 0;
+    private static final int READ = 1;
+    private static final int WRITE = 2;
+
+    private final GraphDirected<V> base;
+    private final StampedLock lock = new StampedLock();
+    private final ThreadLocal<int[]> held = ThreadLocal.withInitial(() -> new int[] { NONE });
+
+    /**
+     * Create a decorator that locks the graph passed.
+     *
+     * @param base the graph to decorate
+     * @throws NullPointerException if the graph is null
+     */
+    public LockedGraph(GraphDirected<V> base) throws NullPointerException {
+        check(base);
+        this.base = base;
+    }
+
+    /**
+     * Run the query while holding the read lock for all its duration, so the graph can't change meanwhile.<br>
+     * The query receives this graph, and all the reads it makes don't lock again.
+     * Trying to change the graph from the query throws an {@link IllegalStateException}.
+     * The query should not wait for other threads that read this graph, since they could be queued behind a writer.
+     *
+     * @param query the query to run
+     * @param <R>   the result of the query
+     * @return the result of the query
+     * @throws NullPointerException if the query is null
+     */
+    public <R> R read(Function<? super LockedGraph<V>, R> query) throws NullPointerException {
+        check(query);
+        return locked(() -> query.apply(this));
+    }
+
+    /**
+     * Run the changes while holding the write lock for all their duration, so nobody sees them half done.<br>
+     * The changes receive this graph, and all the reads and changes they make don't lock again.
+     *
+     * @param changes the changes to make
+     * @throws NullPointerException  if the changes are null
+     * @throws IllegalStateException if called from inside {@link #read(Function)}
+     */
+    public void write(Consumer<? super LockedGraph<V>> changes) throws NullPointerException, IllegalStateException {
+        check(changes);
+        update(() -> {
+            changes.accept(this);
+            return null;
+        });
+    }
+
+    @Override
+    protected Graph<V> getNewInstance() {
+        return new LockedGraph<>((GraphDirected<V>) base.getNewInstance());
+    }
+
+    @Override
+    protected Graph<V> getNewInstance(Collection<V> vertices, Collection<Edge<V>> edges) {
+        return new LockedGraph<>((GraphDirected<V>) base.getNewInstance(vertices, edges));
+    }
+
+    @Override
+    protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+        update(() -> {
+            base.bulkLoad(vertices, edges);
+            return null;
+        });
+    }
+
+    @Override
+    protected boolean readsInParallel() {
+        return false;
+    }
+
+    @Override
+    void apply(Batch<V> batch) throws IllegalArgumentException {
+        update(() -> {
+            super.apply(batch);
+            return null;
+        });
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return vertices().iterator();
+    }
+
+    @Override
+    public boolean contains(V vertex) throws NullPointerException {
+        return locked(() -> base.contains(vertex));
+    }
+
+    @Override
+    public void add(V vertex) throws NullPointerException {
+        update(() -> {
+            base.add(vertex);
+            return null;
+        });
+    }
+
+    @Override
+    protected void checkAdd(V vertex) throws IllegalArgumentException {
+        base.checkAdd(vertex);
+    }
+
+    @Override
+    public void addAll(Collection<V> vertices) throws NullPointerException {
+        update(() -> {
+            base.addAll(vertices);
+            return null;
+        });
+    }
+
+    @Override
+    public void remove(V vertex) throws NullPointerException, IllegalArgumentException {
+        update(() -> {
+            checkVert(vertex);
+            unMark(vertex);
+            base.remove(vertex);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAll() {
+        update(() -> {
+            unMarkAll();
+            base.removeAll();
+            return null;
+        });
+    }
+
+    @Override
+    protected void removeVertices(Set<V> vertices) {
+        update(() -> {
+            base.removeAll(vertices);
+            return null;
+        });
+    }
+
+    @Override
+    public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
+        return update(() -> base.addEdge(vertex1, vertex2, weight));
+    }
+
+    @Override
+    protected void updateEdges(Map<V, Map<V, Integer>> edges) {
+        update(() -> {
+            base.updateEdges(edges);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeEdge(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+        update(() -> {
+            base.removeEdge(vertex1, vertex2);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllEdge(V vertex) throws NullPointerException, IllegalArgumentException {
+        update(() -> {
+            base.removeAllEdge(vertex);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllEdge() {
+        update(() -> {
+            base.removeAllEdge();
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllInEdge(V vertex) throws NullPointerException, IllegalArgumentException {
+        update(() -> {
+            base.removeAllInEdge(vertex);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeAllOutEdge(V vertex) throws NullPointerException, IllegalArgumentException {
+        update(() -> {
+            base.removeAllOutEdge(vertex);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean containsEdge(V vertex1, V vertex2) throws NullPointerException {
+        return locked(() -> base.containsEdge(vertex1, vertex2));
+    }
+
+    @Override
+    public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.getWeight(vertex1, vertex2));
+    }
+
+    @Override
+    public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.getChildren(vertex));
+    }
+
+    @Override
+    public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.getAncestors(vertex));
+    }
+
+    @Override
+    public Set<Edge<V>> getEdgesIn(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.getEdgesIn(vertex));
+    }
+
+    @Override
+    public Set<Edge<V>> getEdgesOut(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.getEdgesOut(vertex));
+    }
+
+    @Override
+    public Set<Edge<V>> edgesOf(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.edgesOf(vertex));
+    }
+
+    @Override
+    public Set<Edge<V>> edges() {
+        return locked(base::edges);
+    }
+
+    @Override
+    public Set<V> vertices() {
+        return locked(base::vertices);
+    }
+
+    @Override
+    public int degreeIn(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.degreeIn(vertex));
+    }
+
+    @Override
+    public int degreeOut(V vertex) throws NullPointerException, IllegalArgumentException {
+        return locked(() -> base.degreeOut(vertex));
+    }
+
+    @Override
+    public int size() {
+        return locked(base::size);
+    }
+
+    @Override
+    public int numberOfEdges() {
+        return locked(base::numberOfEdges);
+    }
+
+    private <R> R locked(Supplier<R> query) {
+        int[] state = held.get();
+        if (state[0] != NONE)
+            return query.get();
+
+        long stamp = lock.readLock();
+        state[0] = READ;
+        try {
+            return query.get();
+        } finally {
+            state[0] = NONE;
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <R> R update(Supplier<R> changes) {
+        int[] state = held.get();
+        if (state[0] == WRITE)
+            return changes.get();
+        if (state[0] == READ)
+            throw new IllegalStateException();
+
+        long stamp = lock.writeLock();
+        state[0] = WRITE;
+        try {
+            return changes.get();
+        } finally {
+            state[0] = NONE;
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package net.berack.upo;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+
+import net.berack.upo.graph.Edge;
+
+/**
+ * A view of a {@link GraphDirected} with all the edges inverted in orientation.<br>
+ * Nothing is copied: the children of a vertex are the ancestors in the base graph and vice versa,
+ * and every change made to the view is made to the base graph (and the other way around), inverting the edges.<br>
+ * Only the marks are of the view itself, so the view starts without marks.<br>
+ * Use {@link #materialize()} for getting an independent copy, like the one of {@link GraphDirected#transpose()}.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class TransposedGraph<V> extends GraphDirected<V> {
+
+    private final GraphDirected<V> base;
+
+    /**
+     * Create a transposed view of the graph passed.
+     *
+     * @param base the graph to transpose
+     * @throws NullPointerException if the graph is null
+     */
+    public TransposedGraph(GraphDirected<V> base) throws NullPointerException {
+        check(base);
+        this.base = base;
+    }
+
+    /**
+     * Copy this view in a new graph of the same type of the base graph.
+     *
+     * @return a transposed copy of the base graph
+     */
+    public GraphDirected<V> materialize() {
+        return base.transpose();
+    }
+
+    @Override
+    protected Graph<V> getNewInstance() {
+        return base.getNewInstance();
+    }
+
+    @Override
+    protected Graph<V> getNewInstance(Collection<V> vertices, Collection<Edge<V>> edges) {
+        return base.getNewInstance(vertices, edges);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return base.iterator();
+    }
+
+    @Override
+    public boolean contains(V vertex) throws NullPointerException {
+        return base.contains(vertex);
+    }
+
+    @Override
+    public void add(V vertex) throws NullPointerException {
+        base.add(vertex);
+    }
+
+    @Override
+    protected boolean readsInParallel() {
+        return base.readsInParallel();
+    }
+
+    @Override
+    protected void checkAdd(V vertex) throws IllegalArgumentException {
+        base.checkAdd(vertex);
+    }
+
+    @Override
+    public void remove(V vertex) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex);
+        unMark(vertex);
+        base.remove(vertex);
+    }
+
+    @Override
+    protected void removeVertices(Set<V> vertices) {
+        base.removeAll(vertices);
+    }
+
+    @Override
+    public void removeAll() {
+        unMarkAll();
+        base.removeAll();
+    }
+
+    @Override
+    public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+        return base.getWeight(vertex2, vertex1);
+    }
+
+    @Override
+    public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
+        return base.addEdge(vertex2, vertex1, weight);
+    }
+
+    @Override
+    public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+        return base.getAncestors(vertex);
+    }
+
+    @Override
+    public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+        return base.getChildren(vertex);
+    }
+
+    @Override
+    public int size() {
+        return base.size();
+    }
+
+    @Override
+    public int numberOfEdges() {
+        return base.numberOfEdges();
+    }
+}
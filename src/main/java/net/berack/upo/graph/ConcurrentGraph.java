@@ -0,0 +1,271 @@
+package net.berack.upo.graph;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphDirected;
+
+/**
+ * A thread safe implementation of the graph, that can be read and modified by many threads at the same time.<br>
+ * The vertices are kept in a concurrent sorted map, and every vertex has a concurrent map of its children
+ * and a concurrent set of its ancestors. The reads never lock, while the changes lock only a part of the graph:<br>
+ * - the changes of an edge lock the stripe of its source vertex, so they are linearizable
+ * and the changes of edges with different sources can run in parallel;<br>
+ * - the changes of a vertex lock all the stripes, since they touch the edges of many other vertices.<br>
+ * The iteration over the vertices is weakly consistent: it never throws a ConcurrentModificationException
+ * and it may or may not show the changes made after it started.<br>
+ * {@link #getChildren(Object)} and {@link #getAncestors(Object)} copy the adjacency in a new sorted set at every
+ * call, as in every other graph, so the readers that traverse the graph pay O(d log(d)) for each vertex of degree d
+ * even if they never lock.<br>
+ * The marks are not thread safe, as in every other graph.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class ConcurrentGraph<V> extends GraphDirected<V> {
+
+	/**
+	 * The default number of stripes used for locking the vertices
+	 */
+	public static final int DEFAULT_STRIPES = 64;
+
+	private final ConcurrentMap<V, Node<V>> nodes = new ConcurrentSkipListMap<>(OBJECT_COMPARATOR);
+	private final AtomicInteger numVertices = new AtomicInteger(0);
+	private final AtomicInteger numEdges = new AtomicInteger(0);
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Create an empty graph with {@link #DEFAULT_STRIPES} stripes
+	 */
+	public ConcurrentGraph() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Create an empty graph that locks its vertices with the number of stripes passed.<br>
+	 * More stripes means less contention between the threads that change edges of different vertices.
+	 *
+	 * @param stripes the number of locks
+	 * @throws IllegalArgumentException if the stripes are not positive
+	 */
+	public ConcurrentGraph(int stripes) throws IllegalArgumentException {
+		if (stripes <= 0)
+			throw new IllegalArgumentException();
+		this.stripes = new ReentrantLock[stripes];
+		for (int i = 0; i < stripes; i++)
+			this.stripes[i] = new ReentrantLock();
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return nodes.keySet().iterator();
+	}
+
+	@Override
+	protected Graph<V> getNewInstance() {
+		return new ConcurrentGraph<>(stripes.length);
+	}
+
+	@Override
+	protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+		if (!nodes.isEmpty()) {
+			super.bulkLoad(vertices, edges);
+			return;
+		}
+
+		lockAll();
+		try {
+			for (V vertex : vertices)
+				if (nodes.putIfAbsent(vertex, new Node<>()) == null)
+					numVertices.incrementAndGet();
+			edges.parallelStream().forEach(edge -> {
+				if (nodes.get(edge.getSource()).out.put(edge.getDestination(), edge.getWeight()) == null) {
+					nodes.get(edge.getDestination()).in.add(edge.getSource());
+					numEdges.incrementAndGet();
+				}
+			});
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public boolean contains(V vertex) throws NullPointerException {
+		check(vertex);
+		return nodes.containsKey(vertex);
+	}
+
+	@Override
+	public void add(V vertex) throws NullPointerException {
+		check(vertex);
+		lockAll();
+		try {
+			Node<V> node = nodes.get(vertex);
+			if (node == null) {
+				nodes.put(vertex, new Node<>());
+				numVertices.incrementAndGet();
+			} else
+				clearEdges(vertex, node);
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public void remove(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		lockAll();
+		try {
+			clearEdges(vertex, node(vertex));
+			nodes.remove(vertex);
+			numVertices.decrementAndGet();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public void removeAll() {
+		lockAll();
+		try {
+			unMarkAll();
+			nodes.clear();
+			numVertices.set(0);
+			numEdges.set(0);
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public void removeAllEdge(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		lockAll();
+		try {
+			clearEdges(vertex, node(vertex));
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override
+	public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
+		check(vertex1, vertex2);
+		ReentrantLock lock = stripe(vertex1);
+		lock.lock();
+		try {
+			Node<V> source = node(vertex1);
+			Node<V> destination = node(vertex2);
+			Integer old = weight == NO_EDGE ? source.out.remove(vertex2) : source.out.put(vertex2, weight);
+
+			if (old == null && weight != NO_EDGE) {
+				destination.in.add(vertex1);
+				numEdges.incrementAndGet();
+			} else if (old != null && weight == NO_EDGE) {
+				destination.in.remove(vertex1);
+				numEdges.decrementAndGet();
+			}
+			return old == null ? NO_EDGE : old;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+		check(vertex1, vertex2);
+		Node<V> source = node(vertex1);
+		node(vertex2);
+		return source.out.getOrDefault(vertex2, NO_EDGE);
+	}
+
+	@Override
+	public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		Set<V> children = getDefaultSet();
+		children.addAll(node(vertex).out.keySet());
+		return children;
+	}
+
+	@Override
+	public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		Set<V> ancestors = getDefaultSet();
+		ancestors.addAll(node(vertex).in);
+		return ancestors;
+	}
+
+	/**
+	 * From here on there are some optimization for the methods of the generic DirectedGraph
+	 **/
+
+	@Override
+	public int size() {
+		return numVertices.get();
+	}
+
+	@Override
+	public int numberOfEdges() {
+		return numEdges.get();
+	}
+
+	@Override
+	public int degreeIn(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		return node(vertex).in.size();
+	}
+
+	@Override
+	public int degreeOut(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		return node(vertex).out.size();
+	}
+
+	private Node<V> node(V vertex) throws IllegalArgumentException {
+		Node<V> node = nodes.get(vertex);
+		if (node == null)
+			throw new IllegalArgumentException(VERTEX_NOT_CONTAINED);
+		return node;
+	}
+
+	private void clearEdges(V vertex, Node<V> node) {
+		numEdges.addAndGet(-node.out.size() - node.in.size() + (node.out.containsKey(vertex) ? 1 : 0));
+		for (V child : node.out.keySet()) {
+			Node<V> other = nodes.get(child);
+			if (other != null)
+				other.in.remove(vertex);
+		}
+		for (V ancestor : node.in) {
+			Node<V> other = nodes.get(ancestor);
+			if (other != null)
+				other.out.remove(vertex);
+		}
+
+		node.out.clear();
+		node.in.clear();
+	}
+
+	private ReentrantLock stripe(V vertex) {
+		return stripes[Math.floorMod(vertex.hashCode(), stripes.length)];
+	}
+
+	private void lockAll() {
+		for (ReentrantLock lock : stripes)
+			lock.lock();
+	}
+
+	private void unlockAll() {
+		for (int i = stripes.length - 1; i >= 0; i--)
+			stripes[i].unlock();
+	}
+
+	private static class Node<V> {
+		private final Map<V, Integer> out = new ConcurrentHashMap<>();
+		private final Set<V> in = ConcurrentHashMap.newKeySet();
+	}
+}
@@ -1,7 +1,9 @@
 package net.berack.upo.graph;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import net.berack.upo.Graph;
 import net.berack.upo.GraphDirected;
@@ -14,7 +16,7 @@ import net.berack.upo.GraphDirected;
  */
 public class ListGraph<V> extends GraphDirected<V> {
 
-	// in case of thread safety use -> Collections.synchronizedSortedMap(TreeMap)
+	// in case of thread safety use -> ConcurrentGraph
 	final private Map<V, List<Adj>> adj = getDefaultMap();
 
 	@Override
@@ -27,6 +29,27 @@ public class ListGraph<V> extends GraphDirected<V> {
 		return new ListGraph<>();
 	}
 
+	@Override
+	protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+		if (!adj.isEmpty()) {
+			super.bulkLoad(vertices, edges);
+			return;
+		}
+
+		Map<V, List<Adj>> adjacency = new ConcurrentHashMap<>();
+		edges.parallelStream()
+				.collect(Collectors.groupingByConcurrent(Edge::getSource, ConcurrentHashMap::new, Collectors.toList()))
+				.forEach(1, (source, out) -> {
+					List<Adj> list = new ArrayList<>(out.size());
+					for (Edge<V> edge : out)
+						list.add(new Adj(edge.getDestination(), edge.getWeight()));
+					adjacency.put(source, list);
+				});
+
+		for (V vertex : vertices)
+			adj.put(vertex, adjacency.getOrDefault(vertex, new LinkedList<>()));
+	}
+
 	@Override
 	public void add(V vertex) {
 		check(vertex);
@@ -49,6 +72,12 @@ public class ListGraph<V> extends GraphDirected<V> {
 		adj.forEach((_, list) -> list.remove(getAdj(list, vertex)));
 	}
 
+	@Override
+	protected void removeVertices(Set<V> vertices) {
+		adj.keySet().removeAll(vertices);
+		adj.forEach((_, list) -> list.removeIf(a -> vertices.contains(a.vertex)));
+	}
+
 	@Override
 	public int addEdge(V vertex1, V vertex2, int weight) {
 		checkVert(vertex1, vertex2);
@@ -66,6 +95,30 @@ public class ListGraph<V> extends GraphDirected<V> {
 		return old;
 	}
 
+	@Override
+	protected void updateEdges(Map<V, Map<V, Integer>> changes) {
+		changes.forEach((source, weights) -> {
+			List<Adj> list = adj.get(source);
+			Map<V, Adj> current = new HashMap<>();
+			for (Adj a : list)
+				current.put(a.vertex, a);
+
+			Set<Adj> removed = new HashSet<>();
+			weights.forEach((destination, weight) -> {
+				Adj a = current.get(destination);
+				if (weight == NO_EDGE) {
+					if (a != null)
+						removed.add(a);
+				} else if (a == null)
+					list.add(new Adj(destination, weight));
+				else
+					a.weight = weight;
+			});
+			if (!removed.isEmpty())
+				list.removeIf(removed::contains);
+		});
+	}
+
 	@Override
 	public int getWeight(V vertex1, V vertex2) {
 		checkVert(vertex1, vertex2);
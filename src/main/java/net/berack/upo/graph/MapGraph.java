@@ -1,7 +1,9 @@
 package net.berack.upo.graph;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import net.berack.upo.Graph;
 import net.berack.upo.GraphDirected;
@@ -37,12 +39,37 @@ public class MapGraph<V> extends GraphDirected<V> {
 		return new MapGraph<>();
 	}
 
+	@Override
+	protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+		if (!this.edges.isEmpty()) {
+			super.bulkLoad(vertices, edges);
+			return;
+		}
+
+		Map<V, Map<V, Integer>> adjacency = new ConcurrentHashMap<>();
+		edges.parallelStream()
+				.collect(Collectors.groupingByConcurrent(Edge::getSource, ConcurrentHashMap::new, Collectors.toList()))
+				.forEach(1, (source, out) -> {
+					Map<V, Integer> adj = new TreeMap<>();
+					for (Edge<V> edge : out)
+						adj.put(edge.getDestination(), edge.getWeight());
+					adjacency.put(source, adj);
+				});
+
+		for (V vertex : vertices)
+			this.edges.put(vertex, adjacency.getOrDefault(vertex, new TreeMap<>()));
+	}
+
 	@Override
 	public void add(V vertex) {
 		check(vertex);
-		edges.computeIfAbsent(vertex, _ -> new TreeMap<>());
-		edges.forEach((_, adj) -> adj.remove(vertex));
-		edges.get(vertex).clear();
+		Map<V, Integer> adj = edges.get(vertex);
+		if (adj == null)
+			edges.put(vertex, new TreeMap<>());
+		else {
+			adj.clear();
+			edges.forEach((_, map) -> map.remove(vertex));
+		}
 	}
 
 	@Override
@@ -58,6 +85,12 @@ public class MapGraph<V> extends GraphDirected<V> {
 		edges.forEach((_, map) -> map.remove(vertex));
 	}
 
+	@Override
+	protected void removeVertices(Set<V> vertices) {
+		edges.keySet().removeAll(vertices);
+		edges.forEach((_, map) -> map.keySet().removeAll(vertices));
+	}
+
 	@Override
 	public int addEdge(V vertex1, V vertex2, int weight) {
 		checkVert(vertex1, vertex2);
@@ -72,6 +105,19 @@ public class MapGraph<V> extends GraphDirected<V> {
 		return old;
 	}
 
+	@Override
+	protected void updateEdges(Map<V, Map<V, Integer>> changes) {
+		changes.forEach((source, adj) -> {
+			Map<V, Integer> edge = edges.get(source);
+			adj.forEach((destination, weight) -> {
+				if (weight == NO_EDGE)
+					edge.remove(destination);
+				else
+					edge.put(destination, weight);
+			});
+		});
+	}
+
 	@Override
 	public int getWeight(V vertex1, V vertex2) {
 		checkVert(vertex1, vertex2);
@@ -1,6 +1,7 @@
 package net.berack.upo.graph;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 import net.berack.upo.Graph;
 import net.berack.upo.GraphDirected;
@@ -26,6 +27,26 @@ public class MatrixGraph<V> extends GraphDirected<V> {
 		return new MatrixGraph<>();
 	}
 
+	@Override
+	protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+		if (!map.isEmpty()) {
+			super.bulkLoad(vertices, edges);
+			return;
+		}
+
+		for (V vertex : vertices)
+			map.putIfAbsent(vertex, map.size());
+
+		int size = map.size();
+		int[][] newMatrix = new int[size][];
+		IntStream.range(0, size).parallel().forEach(i -> {
+			newMatrix[i] = new int[size];
+			Arrays.fill(newMatrix[i], NO_EDGE);
+		});
+		edges.parallelStream().forEach(edge -> newMatrix[map.get(edge.getSource())][map.get(edge.getDestination())] = edge.getWeight());
+		matrix = newMatrix;
+	}
+
 	@Override
 	public void add(V vertex) {
 		check(vertex);
@@ -62,6 +83,29 @@ public class MatrixGraph<V> extends GraphDirected<V> {
 		map.replaceAll((_, index) -> index > x ? index - 1 : index);
 	}
 
+	@Override
+	protected void removeVertices(Set<V> vertices) {
+		int[] newIndex = new int[matrix.length];
+		for (V vertex : vertices)
+			newIndex[map.remove(vertex)] = -1;
+
+		int newSize = 0;
+		for (int i = 0; i < newIndex.length; i++)
+			if (newIndex[i] != -1)
+				newIndex[i] = newSize++;
+
+		int[][] newMatrix = new int[newSize][newSize];
+		IntStream.range(0, matrix.length).parallel().forEach(i -> {
+			if (newIndex[i] != -1)
+				for (int j = 0; j < matrix.length; j++)
+					if (newIndex[j] != -1)
+						newMatrix[newIndex[i]][newIndex[j]] = matrix[i][j];
+		});
+
+		matrix = newMatrix;
+		map.replaceAll((_, index) -> newIndex[index]);
+	}
+
 	@Override
 	public int addEdge(V vertex1, V vertex2, int weight) {
 		checkVert(vertex1, vertex2);
@@ -73,6 +117,14 @@ public class MatrixGraph<V> extends GraphDirected<V> {
 		return old;
 	}
 
+	@Override
+	protected void updateEdges(Map<V, Map<V, Integer>> changes) {
+		changes.forEach((source, adj) -> {
+			int[] row = matrix[map.get(source)];
+			adj.forEach((destination, weight) -> row[map.get(destination)] = weight);
+		});
+	}
+
 	@Override
 	public int getWeight(V vertex1, V vertex2) {
 		checkVert(vertex1, vertex2);
@@ -1,6 +1,7 @@
 package net.berack.upo.graph;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 import net.berack.upo.Graph;
 import net.berack.upo.GraphUndirected;
@@ -15,6 +16,30 @@ public class MatrixUndGraph<V> extends GraphUndirected<V> {
         return new MatrixUndGraph<>();
     }
 
+    @Override
+    protected void bulkLoad(Collection<V> vertices, Collection<Edge<V>> edges) {
+        if (!map.isEmpty()) {
+            super.bulkLoad(vertices, edges);
+            return;
+        }
+
+        for (V vertex : vertices)
+            map.putIfAbsent(vertex, map.size());
+
+        int[][] newMatrix = new int[map.size()][];
+        IntStream.range(0, newMatrix.length).parallel().forEach(i -> {
+            newMatrix[i] = new int[i];
+            Arrays.fill(newMatrix[i], NO_EDGE);
+        });
+        edges.parallelStream().forEach(edge -> {
+            int x = map.get(edge.getSource());
+            int y = map.get(edge.getDestination());
+            if (x != y)
+                newMatrix[Math.max(x, y)][Math.min(x, y)] = edge.getWeight();
+        });
+        matrix = newMatrix;
+    }
+
     @Override
     public boolean contains(V vertex) throws NullPointerException {
         check(vertex);
@@ -50,6 +75,32 @@ public class MatrixUndGraph<V> extends GraphUndirected<V> {
         map.replaceAll((_, index) -> index > x ? index - 1 : index);
     }
 
+    @Override
+    protected void removeVertices(Set<V> vertices) {
+        int[] newIndex = new int[matrix.length];
+        for (V vertex : vertices)
+            newIndex[map.remove(vertex)] = -1;
+
+        int newSize = 0;
+        for (int i = 0; i < newIndex.length; i++)
+            if (newIndex[i] != -1)
+                newIndex[i] = newSize++;
+
+        int[][] newMatrix = new int[newSize][];
+        IntStream.range(0, matrix.length).parallel().forEach(i -> {
+            if (newIndex[i] != -1) {
+                int[] row = new int[newIndex[i]];
+                for (int j = 0; j < i; j++)
+                    if (newIndex[j] != -1)
+                        row[newIndex[j]] = matrix[i][j];
+                newMatrix[newIndex[i]] = row;
+            }
+        });
+
+        matrix = newMatrix;
+        map.replaceAll((_, index) -> newIndex[index]);
+    }
+
     @Override
     public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
         checkVert(vertex1, vertex2);
@@ -58,6 +109,17 @@ public class MatrixUndGraph<V> extends GraphUndirected<V> {
         return x == y ? 0 : matrix[Math.max(x, y)][Math.min(x, y)];
     }
 
+    @Override
+    public Edge<V> getEdge(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+        checkVert(vertex1, vertex2);
+        int x = map.get(vertex1);
+        int y = map.get(vertex2);
+        int weight = x == y ? NO_EDGE : matrix[Math.max(x, y)][Math.min(x, y)];
+        if (weight == NO_EDGE)
+            return null;
+        return x > y ? new Edge<>(vertex1, vertex2, weight) : new Edge<>(vertex2, vertex1, weight);
+    }
+
     @Override
     public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
         checkVert(vertex1, vertex2);
@@ -71,6 +133,18 @@ public class MatrixUndGraph<V> extends GraphUndirected<V> {
         return old;
     }
 
+    @Override
+    protected void updateEdges(Map<V, Map<V, Integer>> changes) {
+        changes.forEach((source, adj) -> {
+            int x = map.get(source);
+            adj.forEach((destination, weight) -> {
+                int y = map.get(destination);
+                if (x != y)
+                    matrix[Math.max(x, y)][Math.min(x, y)] = weight;
+            });
+        });
+    }
+
     @Override
     public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
         checkVert(vertex);
@@ -110,7 +184,7 @@ public class MatrixUndGraph<V> extends GraphUndirected<V> {
         for (int i = 0; i < x; i++)
             if (matrix[x][i] != NO_EDGE)
                 degree++;
-        for (int i = x; i < matrix.length; i++)
+        for (int i = x + 1; i < matrix.length; i++)
             if (matrix[i][x] != NO_EDGE)
                 degree++;
         return degree;
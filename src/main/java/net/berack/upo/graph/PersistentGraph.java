@@ -0,0 +1,266 @@
+package net.berack.upo.graph;
+
+import java.util.*;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphDirected;
+import net.berack.upo.graph.visit.struct.HashTrie;
+
+/**
+ * An immutable implementation of the graph, where every change returns a new graph.<br>
+ * The vertices, and the children and ancestors of every vertex, are kept in a {@link HashTrie},
+ * so a new graph shares almost all its structure with the old one: a change of an edge copies only
+ * O(log(n)) small nodes. Keeping many versions of the same graph costs about one graph plus the changes.<br>
+ * The methods that would modify the graph in place throw an {@link UnsupportedOperationException};
+ * use {@link #withVertex(Object)}, {@link #withoutVertex(Object)}, {@link #withEdge(Object, Object, int)}
+ * and {@link #withoutEdge(Object, Object)} instead. The marks are of every single instance, and they
+ * aren't passed to the new graphs.<br>
+ * All the fields are final, so a graph can be passed to other threads without any synchronization.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class PersistentGraph<V> extends GraphDirected<V> {
+
+	private final HashTrie<V, Node<V>> nodes;
+	private final int numEdges;
+
+	/**
+	 * Create an empty graph
+	 */
+	public PersistentGraph() {
+		this(HashTrie.empty(), 0);
+	}
+
+	private PersistentGraph(HashTrie<V, Node<V>> nodes, int numEdges) {
+		this.nodes = nodes;
+		this.numEdges = numEdges;
+	}
+
+	/**
+	 * Create a persistent graph with the same vertices and edges of the graph passed.
+	 *
+	 * @param graph the graph to copy
+	 * @param <V>   the vertices
+	 * @return a new persistent graph
+	 * @throws NullPointerException if the graph is null
+	 */
+	public static <V> PersistentGraph<V> of(Graph<V> graph) throws NullPointerException {
+		return build(graph.vertices(), graph.edges());
+	}
+
+	/**
+	 * Get a graph with the vertex added, without any edge.<br>
+	 * If the vertex is already in this graph, then this graph is returned.
+	 *
+	 * @param vertex the vertex to add
+	 * @return a graph with the vertex
+	 * @throws NullPointerException if the vertex is null
+	 */
+	public PersistentGraph<V> withVertex(V vertex) throws NullPointerException {
+		check(vertex);
+		if (nodes.containsKey(vertex))
+			return this;
+		return new PersistentGraph<>(nodes.with(vertex, new Node<>()), numEdges);
+	}
+
+	/**
+	 * Get a graph without the vertex and all its edges.
+	 *
+	 * @param vertex the vertex to remove
+	 * @return a graph without the vertex
+	 * @throws NullPointerException     if the vertex is null
+	 * @throws IllegalArgumentException if the vertex is not contained in the graph
+	 */
+	public PersistentGraph<V> withoutVertex(V vertex) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex);
+		Node<V> node = nodes.get(vertex);
+		HashTrie<V, Node<V>> newNodes = nodes.without(vertex);
+
+		for (Map.Entry<V, Integer> child : node.out)
+			if (!child.getKey().equals(vertex)) {
+				Node<V> other = newNodes.get(child.getKey());
+				newNodes = newNodes.with(child.getKey(), new Node<>(other.out, other.in.without(vertex)));
+			}
+		for (Map.Entry<V, Integer> ancestor : node.in)
+			if (!ancestor.getKey().equals(vertex)) {
+				Node<V> other = newNodes.get(ancestor.getKey());
+				newNodes = newNodes.with(ancestor.getKey(), new Node<>(other.out.without(vertex), other.in));
+			}
+
+		int removed = node.out.size() + node.in.size() - (node.out.containsKey(vertex) ? 1 : 0);
+		return new PersistentGraph<>(newNodes, numEdges - removed);
+	}
+
+	/**
+	 * Get a graph with the edge between the two vertices, or with its weight changed if it already exists.<br>
+	 * If the weight is {@link #NO_EDGE} then the edge is removed.
+	 *
+	 * @param vertex1 the source vertex
+	 * @param vertex2 the destination vertex
+	 * @param weight  the weight of the edge
+	 * @return a graph with the edge
+	 * @throws NullPointerException     if one of the vertices is null
+	 * @throws IllegalArgumentException if one of the vertices is not contained in the graph
+	 */
+	public PersistentGraph<V> withEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex1, vertex2);
+		if (weight == NO_EDGE)
+			return withoutEdge(vertex1, vertex2);
+
+		Node<V> source = nodes.get(vertex1);
+		Integer old = source.out.get(vertex2);
+		if (old != null && old == weight)
+			return this;
+
+		HashTrie<V, Node<V>> newNodes = nodes.with(vertex1, new Node<>(source.out.with(vertex2, weight), source.in));
+		Node<V> destination = newNodes.get(vertex2);
+		newNodes = newNodes.with(vertex2, new Node<>(destination.out, destination.in.with(vertex1, weight)));
+		return new PersistentGraph<>(newNodes, numEdges + (old == null ? 1 : 0));
+	}
+
+	/**
+	 * Get a graph without the edge between the two vertices.<br>
+	 * If the edge doesn't exist, then this graph is returned.
+	 *
+	 * @param vertex1 the source vertex
+	 * @param vertex2 the destination vertex
+	 * @return a graph without the edge
+	 * @throws NullPointerException     if one of the vertices is null
+	 * @throws IllegalArgumentException if one of the vertices is not contained in the graph
+	 */
+	public PersistentGraph<V> withoutEdge(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex1, vertex2);
+		Node<V> source = nodes.get(vertex1);
+		if (!source.out.containsKey(vertex2))
+			return this;
+
+		HashTrie<V, Node<V>> newNodes = nodes.with(vertex1, new Node<>(source.out.without(vertex2), source.in));
+		Node<V> destination = newNodes.get(vertex2);
+		newNodes = newNodes.with(vertex2, new Node<>(destination.out, destination.in.without(vertex1)));
+		return new PersistentGraph<>(newNodes, numEdges - 1);
+	}
+
+	/**
+	 * Build a new graph with the vertices and edges passed, starting from the empty one.
+	 */
+	private static <V> PersistentGraph<V> build(Collection<V> vertices, Collection<Edge<V>> edges) {
+		PersistentGraph<V> graph = new PersistentGraph<>();
+		for (V vertex : vertices)
+			graph = graph.withVertex(vertex);
+		for (Edge<V> edge : edges)
+			graph = graph.withEdge(edge.getSource(), edge.getDestination(), edge.getWeight());
+		return graph;
+	}
+
+	@Override
+	protected Graph<V> getNewInstance() {
+		return new PersistentGraph<>();
+	}
+
+	@Override
+	protected Graph<V> getNewInstance(Collection<V> vertices, Collection<Edge<V>> edges) {
+		return build(vertices, edges);
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		Iterator<Map.Entry<V, Node<V>>> iter = nodes.iterator();
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public V next() {
+				return iter.next().getKey();
+			}
+		};
+	}
+
+	@Override
+	public boolean contains(V vertex) throws NullPointerException {
+		check(vertex);
+		return nodes.containsKey(vertex);
+	}
+
+	@Override
+	public void add(V vertex) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void remove(V vertex) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int addEdge(V vertex1, V vertex2, int weight) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex1, vertex2);
+		return nodes.get(vertex1).out.getOrDefault(vertex2, NO_EDGE);
+	}
+
+	@Override
+	public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex);
+		Set<V> children = getDefaultSet();
+		for (Map.Entry<V, Integer> child : nodes.get(vertex).out)
+			children.add(child.getKey());
+		return children;
+	}
+
+	@Override
+	public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex);
+		Set<V> ancestors = getDefaultSet();
+		for (Map.Entry<V, Integer> ancestor : nodes.get(vertex).in)
+			ancestors.add(ancestor.getKey());
+		return ancestors;
+	}
+
+	/**
+	 * From here on there are some optimization for the methods of the generic DirectedGraph
+	 **/
+
+	@Override
+	public int size() {
+		return nodes.size();
+	}
+
+	@Override
+	public int numberOfEdges() {
+		return numEdges;
+	}
+
+	@Override
+	public int degreeIn(V vertex) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex);
+		return nodes.get(vertex).in.size();
+	}
+
+	@Override
+	public int degreeOut(V vertex) throws NullPointerException, IllegalArgumentException {
+		checkVert(vertex);
+		return nodes.get(vertex).out.size();
+	}
+
+	private static class Node<V> {
+		private final HashTrie<V, Integer> out;
+		private final HashTrie<V, Integer> in;
+
+		private Node() {
+			this(HashTrie.empty(), HashTrie.empty());
+		}
+
+		private Node(HashTrie<V, Integer> out, HashTrie<V, Integer> in) {
+			this.out = out;
+			this.in = in;
+		}
+	}
+}
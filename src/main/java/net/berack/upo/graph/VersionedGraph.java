@@ -0,0 +1,486 @@
+package net.berack.upo.graph;
+
+import java.lang.ref.Cleaner;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphDirected;
+
+/**
+ * An implementation of the graph that keeps the old versions of its vertices and edges,
+ * so that it can give cheap immutable snapshots of itself with {@link #snapshot()}.<br>
+ * Every vertex and every edge has a chain of stamps, from the newest to the oldest, where each stamp
+ * says the value it had from a certain version onward. Every change to the graph creates a new version
+ * and adds a stamp only to the vertices and edges that it changes, so a snapshot only needs to remember
+ * the version it was taken at for reading the graph as it was.<br>
+ * The changes are made one at a time by the writers, but they never block the readers, not even the ones
+ * of the snapshots: a reader only sees the stamps of the versions already completed.<br>
+ * The stamps that can't be read anymore by any snapshot are dropped while writing.
+ * The removed vertices and edges are forgotten right away if there are no snapshots,
+ * otherwise when the oldest snapshot is closed.
+ * The snapshots that aren't closed are released when they are garbage collected.
+ *
+ * @param <V> the vertices
+ * @author Berack96
+ */
+public class VersionedGraph<V> extends GraphDirected<V> {
+
+	private static final Cleaner CLEANER = Cleaner.create();
+
+	private final ConcurrentMap<V, Entry<V>> entries = new ConcurrentSkipListMap<>(OBJECT_COMPARATOR);
+	private final TreeMap<Long, Integer> snapshots = new TreeMap<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private volatile long version = 0;
+	private volatile int numVertices = 0;
+	private volatile int numEdges = 0;
+
+	/**
+	 * Get an immutable copy of the current state of this graph.<br>
+	 * Nothing is copied, so it costs the same no matter the size of the graph, and the snapshot
+	 * doesn't change when this graph is modified.<br>
+	 * The snapshot should be closed when it is no longer needed, so the old versions
+	 * of the vertices and edges can be dropped.
+	 *
+	 * @return a snapshot of this graph
+	 */
+	public Snapshot<V> snapshot() {
+		lock.lock();
+		try {
+			snapshots.merge(version, 1, Integer::sum);
+			return new Snapshot<>(this, version, numVertices, numEdges);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get the current version of this graph.<br>
+	 * It starts at 0 and it is incremented by every change.
+	 *
+	 * @return the version of this graph
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Tells how many vertices are kept by this graph, counting also the removed ones
+	 * that are kept only because some snapshot can still read them.<br>
+	 * When there are no snapshots it is the same as {@link #size()}.
+	 *
+	 * @return the number of vertices kept
+	 */
+	public int getRetainedVertices() {
+		return entries.size();
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return iterator(version);
+	}
+
+	@Override
+	protected Graph<V> getNewInstance() {
+		return new VersionedGraph<>();
+	}
+
+	@Override
+	public boolean contains(V vertex) throws NullPointerException {
+		check(vertex);
+		return contains(vertex, version);
+	}
+
+	@Override
+	public void add(V vertex) throws NullPointerException {
+		check(vertex);
+		lock.lock();
+		try {
+			long next = version + 1;
+			long oldest = oldest();
+			Entry<V> entry = entries.computeIfAbsent(vertex, _ -> new Entry<>());
+			if (entry.alive.at(version) != 0) {
+				clearEdges(entry, next, oldest);
+				if (snapshots.isEmpty())
+					dropEdges(vertex, entry);
+			} else {
+				entry.alive.set(next, 1, oldest);
+				numVertices++;
+			}
+			version = next;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void remove(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		lock.lock();
+		try {
+			Entry<V> entry = entry(vertex, version);
+			long next = version + 1;
+			long oldest = oldest();
+			clearEdges(entry, next, oldest);
+			entry.alive.set(next, 0, oldest);
+			if (snapshots.isEmpty())
+				forget(vertex, entry);
+			numVertices--;
+			version = next;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalArgumentException {
+		check(vertex1, vertex2);
+		lock.lock();
+		try {
+			Entry<V> source = entry(vertex1, version);
+			Entry<V> destination = entry(vertex2, version);
+			long next = version + 1;
+			Chain chain = source.out.get(vertex2);
+			if (chain == null) {
+				chain = new Chain(NO_EDGE);
+				source.out.put(vertex2, chain);
+				destination.in.put(vertex1, chain);
+			}
+
+			int old = chain.at(version);
+			chain.set(next, weight, oldest());
+			if (weight == NO_EDGE && snapshots.isEmpty()) {
+				source.out.remove(vertex2);
+				destination.in.remove(vertex1);
+			}
+			numEdges += (old == NO_EDGE ? 0 : -1) + (weight == NO_EDGE ? 0 : 1);
+			version = next;
+			return old;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+		check(vertex1, vertex2);
+		return weight(vertex1, vertex2, version);
+	}
+
+	@Override
+	public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		long at = version;
+		return adjacent(entry(vertex, at).out, at);
+	}
+
+	@Override
+	public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+		check(vertex);
+		long at = version;
+		return adjacent(entry(vertex, at).in, at);
+	}
+
+	@Override
+	public int size() {
+		return numVertices;
+	}
+
+	@Override
+	public int numberOfEdges() {
+		return numEdges;
+	}
+
+	private Iterator<V> iterator(long at) {
+		return entries.entrySet().stream()
+				.filter(entry -> entry.getValue().alive.at(at) != 0)
+				.map(Map.Entry::getKey)
+				.iterator();
+	}
+
+	private boolean contains(V vertex, long at) {
+		Entry<V> entry = entries.get(vertex);
+		return entry != null && entry.alive.at(at) != 0;
+	}
+
+	private Entry<V> entry(V vertex, long at) throws IllegalArgumentException {
+		Entry<V> entry = entries.get(vertex);
+		if (entry == null || entry.alive.at(at) == 0)
+			throw new IllegalArgumentException(VERTEX_NOT_CONTAINED);
+		return entry;
+	}
+
+	private int weight(V vertex1, V vertex2, long at) throws IllegalArgumentException {
+		Entry<V> source = entry(vertex1, at);
+		entry(vertex2, at);
+		Chain chain = source.out.get(vertex2);
+		return chain == null ? NO_EDGE : chain.at(at);
+	}
+
+	private Set<V> adjacent(Map<V, Chain> chains, long at) {
+		Set<V> vertices = getDefaultSet();
+		chains.forEach((vertex, chain) -> {
+			if (chain.at(at) != NO_EDGE)
+				vertices.add(vertex);
+		});
+		return vertices;
+	}
+
+	private void clearEdges(Entry<V> entry, long next, long oldest) {
+		Set<Chain> cleared = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Chain chain : entry.out.values())
+			if (chain.at(version) != NO_EDGE && cleared.add(chain))
+				chain.set(next, NO_EDGE, oldest);
+		for (Chain chain : entry.in.values())
+			if (chain.at(version) != NO_EDGE && cleared.add(chain))
+				chain.set(next, NO_EDGE, oldest);
+		numEdges -= cleared.size();
+	}
+
+	/**
+	 * The oldest version that can still be read, by the snapshots or by the readers of this graph
+	 */
+	private long oldest() {
+		return snapshots.isEmpty() ? version : snapshots.firstKey();
+	}
+
+	/**
+	 * Release a snapshot and, if it was the oldest one, forget all the vertices and edges that can't be read anymore.
+	 */
+	private void release(long at) {
+		lock.lock();
+		try {
+			boolean wasOldest = !snapshots.isEmpty() && snapshots.firstKey() == at;
+			snapshots.computeIfPresent(at, (_, count) -> count == 1 ? null : count - 1);
+			if (wasOldest && !snapshots.containsKey(at))
+				vacuum(oldest());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void forget(V vertex, Entry<V> entry) {
+		dropEdges(vertex, entry);
+		entries.remove(vertex);
+	}
+
+	/**
+	 * Drop all the chains of the edges of the vertex, from both sides, when nobody can read them anymore.
+	 */
+	private void dropEdges(V vertex, Entry<V> entry) {
+		for (V child : entry.out.keySet()) {
+			Entry<V> other = entries.get(child);
+			if (other != null)
+				other.in.remove(vertex);
+		}
+		for (V ancestor : entry.in.keySet()) {
+			Entry<V> other = entries.get(ancestor);
+			if (other != null)
+				other.out.remove(vertex);
+		}
+		entry.out.clear();
+		entry.in.clear();
+	}
+
+	/**
+	 * Drop the dead chains of all the edges first, from both sides, and only then the dead vertices,
+	 * since a vertex can be dropped only when it has no chains left.
+	 */
+	private void vacuum(long oldest) {
+		for (Map.Entry<V, Entry<V>> current : entries.entrySet()) {
+			V vertex = current.getKey();
+			current.getValue().out.entrySet().removeIf(edge -> {
+				if (!edge.getValue().isDead(oldest))
+					return false;
+				Entry<V> destination = entries.get(edge.getKey());
+				if (destination != null)
+					destination.in.remove(vertex);
+				return true;
+			});
+		}
+
+		entries.values().removeIf(entry -> entry.alive.isDead(oldest) && entry.in.isEmpty() && entry.out.isEmpty());
+	}
+
+	/**
+	 * An immutable copy of a {@link VersionedGraph}, as it was when the snapshot was taken.<br>
+	 * It can be read by many threads while the original graph is modified, and all the methods that would
+	 * change it throw an {@link UnsupportedOperationException}, with the exception of the marks that are
+	 * of the snapshot itself.<br>
+	 * Close it when it is no longer needed, so the graph can drop the old versions.
+	 *
+	 * @param <V> the vertices
+	 * @author Berack96
+	 */
+	public static final class Snapshot<V> extends GraphDirected<V> implements AutoCloseable {
+
+		private final VersionedGraph<V> graph;
+		private final long version;
+		private final int numVertices;
+		private final int numEdges;
+		private final Cleaner.Cleanable cleanable;
+
+		private Snapshot(VersionedGraph<V> graph, long version, int numVertices, int numEdges) {
+			this.graph = graph;
+			this.version = version;
+			this.numVertices = numVertices;
+			this.numEdges = numEdges;
+			this.cleanable = CLEANER.register(this, new Release(graph, version));
+		}
+
+		/**
+		 * Get the version of the graph that this snapshot shows
+		 *
+		 * @return the version of the snapshot
+		 */
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * Release this snapshot, so the graph can drop the versions that nobody reads anymore.<br>
+		 * Calling it more than once has no effect. The snapshot can still be read after, but only
+		 * until the graph is modified again.
+		 */
+		@Override
+		public void close() {
+			cleanable.clean();
+		}
+
+		@Override
+		protected Graph<V> getNewInstance() {
+			return new VersionedGraph<>();
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			return graph.iterator(version);
+		}
+
+		@Override
+		public boolean contains(V vertex) throws NullPointerException {
+			check(vertex);
+			return graph.contains(vertex, version);
+		}
+
+		@Override
+		public void add(V vertex) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void remove(V vertex) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int addEdge(V vertex1, V vertex2, int weight) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int getWeight(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException {
+			check(vertex1, vertex2);
+			return graph.weight(vertex1, vertex2, version);
+		}
+
+		@Override
+		public Set<V> getChildren(V vertex) throws NullPointerException, IllegalArgumentException {
+			check(vertex);
+			return graph.adjacent(graph.entry(vertex, version).out, version);
+		}
+
+		@Override
+		public Set<V> getAncestors(V vertex) throws NullPointerException, IllegalArgumentException {
+			check(vertex);
+			return graph.adjacent(graph.entry(vertex, version).in, version);
+		}
+
+		@Override
+		public int size() {
+			return numVertices;
+		}
+
+		@Override
+		public int numberOfEdges() {
+			return numEdges;
+		}
+	}
+
+	/**
+	 * Action that releases a snapshot only once, either when closed or when garbage collected
+	 */
+	private static class Release implements Runnable {
+		private final VersionedGraph<?> graph;
+		private final long version;
+		private final AtomicBoolean done = new AtomicBoolean(false);
+
+		private Release(VersionedGraph<?> graph, long version) {
+			this.graph = graph;
+			this.version = version;
+		}
+
+		@Override
+		public void run() {
+			if (done.compareAndSet(false, true))
+				graph.release(version);
+		}
+	}
+
+	/**
+	 * The stamps of a vertex and of its edges
+	 */
+	private static class Entry<V> {
+		private final Chain alive = new Chain(0);
+		private final Map<V, Chain> out = new ConcurrentHashMap<>();
+		private final Map<V, Chain> in = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * The values of a vertex or edge in the versions, from the newest
+	 */
+	private static class Chain {
+		private volatile Stamp head;
+
+		private Chain(int value) {
+			head = new Stamp(0, value, null);
+		}
+
+		private int at(long version) {
+			Stamp stamp = head;
+			while (stamp.version > version && stamp.next != null)
+				stamp = stamp.next;
+			return stamp.value;
+		}
+
+		private void set(long version, int value, long oldest) {
+			Stamp newest = head;
+			Stamp stamp = newest;
+			while (stamp.version > oldest && stamp.next != null)
+				stamp = stamp.next;
+			stamp.next = null;
+			head = new Stamp(version, value, newest);
+		}
+
+		private boolean isDead(long oldest) {
+			Stamp stamp = head;
+			return stamp.value == 0 && stamp.version <= oldest;
+		}
+	}
+
+	private static class Stamp {
+		private final long version;
+		private final int value;
+		private volatile Stamp next;
+
+		private Stamp(long version, int value, Stamp next) {
+			this.version = version;
+			this.value = value;
+			this.next = next;
+		}
+	}
+}
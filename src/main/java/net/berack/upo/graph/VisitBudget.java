@@ -0,0 +1,152 @@
+package net.berack.upo.graph;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The limits of a visit: a deadline, a maximum number of vertices and of edges, and a way to cancel it from another thread.<br>
+ * The strategies that accept a budget ask it before working on each vertex or edge, and when the budget is exhausted
+ * they stop and return what they have found so far; the {@link net.berack.upo.graph.visit.VisitInfo} returned, if any,
+ * is then flagged as not complete.<br>
+ * A budget is consumed by the visits that use it, so a new one is needed for each independent visit.
+ * It is thread-safe, so it can be shared by the threads of a parallel visit.
+ *
+ * @author Berack96
+ */
+public class VisitBudget {
+
+    private long deadline = 0;
+    private boolean hasDeadline = false;
+    private long maxVertices = Long.MAX_VALUE;
+    private long maxEdges = Long.MAX_VALUE;
+    private final AtomicLong vertices = new AtomicLong();
+    private final AtomicLong edges = new AtomicLong();
+    private volatile boolean exhausted = false;
+
+    /**
+     * Set the maximum time that the visits have from now.
+     *
+     * @param timeout the time available
+     * @return this instance
+     * @throws NullPointerException if the timeout is null
+     */
+    public VisitBudget setTimeout(Duration timeout) throws NullPointerException {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+        this.hasDeadline = true;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of vertices that can be processed.
+     *
+     * @param max the number of vertices
+     * @return this instance
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public VisitBudget setMaxVertices(long max) throws IllegalArgumentException {
+        if (max < 0)
+            throw new IllegalArgumentException();
+        this.maxVertices = max;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of edges that can be processed.
+     *
+     * @param max the number of edges
+     * @return this instance
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public VisitBudget setMaxEdges(long max) throws IllegalArgumentException {
+        if (max < 0)
+            throw new IllegalArgumentException();
+        this.maxEdges = max;
+        return this;
+    }
+
+    /**
+     * Stop the visits that are using this budget.<br>
+     * It can be called from any thread.
+     */
+    public void cancel() {
+        exhausted = true;
+    }
+
+    /**
+     * Ask for processing one more vertex.
+     *
+     * @return true if the vertex can be processed, false if the budget is exhausted
+     */
+    public boolean consumeVertex() {
+        return consumeVertices(1);
+    }
+
+    /**
+     * Ask for processing some vertices all at once, as the parallel visits do for each level.
+     *
+     * @param count the number of vertices
+     * @return true if the vertices can be processed, false if the budget is exhausted
+     */
+    public boolean consumeVertices(long count) {
+        return consume(vertices, maxVertices, count);
+    }
+
+    /**
+     * Ask for processing one more edge.
+     *
+     * @return true if the edge can be processed, false if the budget is exhausted
+     */
+    public boolean consumeEdge() {
+        return consumeEdges(1);
+    }
+
+    /**
+     * Ask for processing some edges all at once, as the parallel visits do for each level.
+     *
+     * @param count the number of edges
+     * @return true if the edges can be processed, false if the budget is exhausted
+     */
+    public boolean consumeEdges(long count) {
+        return consume(edges, maxEdges, count);
+    }
+
+    /**
+     * Add the count to the counter if it stays in the max, otherwise set the budget as exhausted.
+     */
+    private boolean consume(AtomicLong counter, long max, long count) {
+        if (isExhausted())
+            return false;
+        if (counter.addAndGet(count) <= max)
+            return true;
+
+        counter.addAndGet(-count);
+        exhausted = true;
+        return false;
+    }
+
+    /**
+     * Tells if the budget is over, because it has been cancelled, the deadline has passed or too many vertices or edges are been processed.<br>
+     * Once exhausted a budget stays exhausted.
+     *
+     * @return true if the visits must stop
+     */
+    public boolean isExhausted() {
+        if (!exhausted && hasDeadline && System.nanoTime() - deadline > 0)
+            exhausted = true;
+        return exhausted;
+    }
+
+    /**
+     * @return the number of vertices processed so far
+     */
+    public long getVertices() {
+        return vertices.get();
+    }
+
+    /**
+     * @return the number of edges processed so far
+     */
+    public long getEdges() {
+        return edges.get();
+    }
+}
@@ -0,0 +1,22 @@
+package net.berack.upo.graph;
+
+/**
+ * The answer of a controlled visit for each vertex that is reached.<br>
+ * It tells the {@link VisitStrategy} how to go on after that vertex.
+ *
+ * @author Berack96
+ */
+public enum VisitControl {
+    /**
+     * Go on with the visit as usual
+     */
+    CONTINUE,
+    /**
+     * Go on with the visit, but don't explore the children of this vertex
+     */
+    SKIP_CHILDREN,
+    /**
+     * Stop the visit right away
+     */
+    STOP
+}
@@ -4,6 +4,7 @@ import java.util.function.Consumer;
 
 import net.berack.upo.Graph;
 import net.berack.upo.GraphDirected;
+import net.berack.upo.graph.visit.VisitEvent;
 import net.berack.upo.graph.visit.VisitInfo;
 
 /**
@@ -17,7 +18,8 @@ public interface VisitStrategy<V> {
     /**
      * With this the graph will be visited accordingly to the strategy of the visit.<br>
      * Some strategy can accept a source vertex null, because they visit all the graph anyway.<br>
-     * If you want to stop the visit of the graph, you just have to throw any exception in the visit function, but be sure to catch it
+     * If you want to stop the visit of the graph, you just have to throw any exception in the visit function, but be sure to catch it<br>
+     * (some strategies, like {@link net.berack.upo.graph.visit.BFS} and {@link net.berack.upo.graph.visit.DFS}, can also be stopped with a {@link VisitControl})
      *
      * @param graph  the graph to visit
      * @param source the vertex where the visit starts
@@ -28,6 +30,24 @@ public interface VisitStrategy<V> {
      */
     VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException;
 
+    /**
+     * Visit the graph like {@link #visit(Graph, Object, Consumer)}, but the {@link VisitInfo} of the visit sends an event
+     * to the observer every time it changes, as used by {@link net.berack.upo.graph.visit.VisitPublisher}.<br>
+     * Only the info of this visit sends the events, not the ones of other visits that the strategy could run inside it.<br>
+     * By default no event is sent, so the strategies that fill a {@link VisitInfo} should override it.
+     *
+     * @param graph    the graph to visit
+     * @param source   the vertex where the visit starts
+     * @param visit    the function to apply at each vertex when they are visited
+     * @param observer the function that receives the events, or null
+     * @return an info of the view
+     * @throws NullPointerException          if the graph is null
+     * @throws UnsupportedOperationException in the case that the visit algorithm cannot be applied to the graph
+     */
+    default VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, UnsupportedOperationException {
+        return visit(graph, source, visit);
+    }
+
     /**
      * Method used for checking if the graph is Directed.<br>
      * It's useful when the algorithm can only be applied to Directed graph.
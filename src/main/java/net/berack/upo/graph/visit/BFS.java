@@ -1,14 +1,22 @@
 package net.berack.upo.graph.visit;
 
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import net.berack.upo.Graph;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitControl;
 import net.berack.upo.graph.VisitStrategy;
 
 /**
  * Breadth-first search<br>
- * The algorithm starts at the root node and explores all of the neighbor nodes at the present depth prior to moving on to the nodes at the next depth level.
+ * The algorithm starts at the root node and explores all of the neighbor nodes at the present depth prior to moving on to the nodes at the next depth level.<br>
+ * The visit can be steered with a control function, asked for each vertex when it is discovered,
+ * and with an edge filter that hides the edges that must not be followed.
  *
  * @param <V> the vertex of the graph
  * @author Berack96
@@ -16,36 +24,141 @@ import net.berack.upo.graph.VisitStrategy;
 public class BFS<V> implements VisitStrategy<V> {
 
     private int maxDepth = -1;
+    private boolean trackInfo = true;
+    private boolean compact = false;
+    private Function<V, VisitControl> control = null;
+    private BiPredicate<V, V> edgeFilter = null;
+    private VisitBudget budget = null;
 
     public BFS<V> setMaxDepth(int depth) {
         this.maxDepth = depth;
         return this;
     }
 
+    /**
+     * Choose if the visit has to fill a {@link VisitInfo}.<br>
+     * If not, only the discovered vertices and the queue are kept, and the visit returns null.
+     *
+     * @param track true (the default) for having the info of the visit
+     * @return this instance
+     */
+    public BFS<V> setTrackInfo(boolean track) {
+        this.trackInfo = track;
+        return this;
+    }
+
+    /**
+     * Choose if the visit has to fill a {@link CompactVisitInfo} instead of a {@link VisitInfo}.<br>
+     * It keeps the data of the vertices in arrays instead of an object for each one, and it is not synchronized,
+     * so it costs much less for the visits that discover many vertices.
+     *
+     * @param compact true for having a {@link CompactVisitInfo}, false (the default) for a {@link VisitInfo}
+     * @return this instance
+     */
+    public BFS<V> setCompact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /**
+     * Set the function called for every vertex when it is discovered, source included, right after the visit function.<br>
+     * With {@link VisitControl#SKIP_CHILDREN} the children of the vertex will not be explored,
+     * while with {@link VisitControl#STOP} the visit returns immediately.
+     *
+     * @param control the function or null for always continue
+     * @return this instance
+     */
+    public BFS<V> setControl(Function<V, VisitControl> control) {
+        this.control = control;
+        return this;
+    }
+
+    /**
+     * Set a filter for the edges, asked with the vertex and its child before the child is considered.<br>
+     * If the filter returns false the edge is not followed.
+     *
+     * @param edgeFilter the filter or null for following all the edges
+     * @return this instance
+     */
+    public BFS<V> setEdgeFilter(BiPredicate<V, V> edgeFilter) {
+        this.edgeFilter = edgeFilter;
+        return this;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops, and the info returned has only the vertices discovered so far and is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public BFS<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
     @Override
     public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, IllegalArgumentException {
-        VisitInfo<V> info = new VisitInfo<>(source);
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, IllegalArgumentException {
+        VisitInfo<V> info = !trackInfo ? null : compact ? new CompactVisitInfo<>(source, observer) : new VisitInfo<>(source, observer);
+        Set<V> discovered = trackInfo ? null : new HashSet<>();
         final LinkedList<V> toVisitChildren = new LinkedList<>();
+        int depth = 0;
+        int inLevel = 1;
+        int inNextLevel = 0;
 
-        toVisitChildren.push(source);
         if (visit != null)
             visit.accept(source);
-        info.setVisited(source);
+        if (info != null)
+            info.setVisited(source);
+        else
+            discovered.add(source);
+
+        VisitControl answer = control == null ? VisitControl.CONTINUE : control.apply(source);
+        if (answer == VisitControl.STOP)
+            return info;
+        if (answer == VisitControl.CONTINUE)
+            toVisitChildren.push(source);
 
         while (!toVisitChildren.isEmpty()) {
-            V current = toVisitChildren.removeFirst();
-            if (maxDepth > -1 && info.getDepth(current) >= maxDepth)
+            if (maxDepth > -1 && depth >= maxDepth)
                 break;
+            V current = toVisitChildren.removeFirst();
+            if (budget != null && !budget.consumeVertex())
+                return VisitInfo.incomplete(info);
 
-            for (V child : graph.getChildren(current))
-                if (!info.isDiscovered(child)) {
-                    toVisitChildren.addLast(child);
+            for (V child : graph.getChildren(current)) {
+                if (budget != null && !budget.consumeEdge())
+                    return VisitInfo.incomplete(info);
+                if ((edgeFilter != null && !edgeFilter.test(current, child))
+                        || (info != null ? info.isDiscovered(child) : !discovered.add(child)))
+                    continue;
 
-                    info.setVisited(child);
+                if (info != null) {
                     info.setParent(current, child);
-                    if (visit != null)
-                        visit.accept(child);
+                    info.setVisited(child);
                 }
+                if (visit != null)
+                    visit.accept(child);
+
+                answer = control == null ? VisitControl.CONTINUE : control.apply(child);
+                if (answer == VisitControl.STOP)
+                    return info;
+                if (answer == VisitControl.CONTINUE) {
+                    toVisitChildren.addLast(child);
+                    inNextLevel++;
+                }
+            }
+
+            if (--inLevel == 0) {
+                depth++;
+                inLevel = inNextLevel;
+                inNextLevel = 0;
+            }
         }
         return info;
     }
@@ -0,0 +1,93 @@
+package net.berack.upo.graph.visit;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphUndirected;
+import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitMST;
+import net.berack.upo.graph.visit.struct.DisjointSet;
+import net.berack.upo.graph.visit.struct.EdgeList;
+
+/**
+ * Class that implement the algorithm discovered by Borůvka for the minimum spanning forest
+ * for a given {@link GraphUndirected}, using all the available cores.<br>
+ * Each round finds in parallel the lightest edge that goes out of every component,
+ * then adds all of them to the forest merging the components in a {@link DisjointSet}.
+ * Since every round at least halves the number of the components, there are at most O(log(V)) rounds.<br>
+ * The ties between the weights are broken by the order of {@link Graph#edges()},
+ * so the result is the same as the one of {@link Kruskal}.
+ *
+ * @param <V> The vertex of the graph
+ */
+public class Boruvka<V> implements VisitMST<V> {
+    private static final long NONE = Long.MAX_VALUE;
+
+    private Set<Edge<V>> mst;
+    private VisitBudget budget = null;
+
+    @Override
+    public Set<Edge<V>> getMST() {
+        return mst;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * The edges of a round are asked all together before starting it.
+     * When it runs out the visit stops and the forest has only the edges chosen so far;
+     * use {@link VisitBudget#isExhausted()} for knowing if it is complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public Boruvka<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException {
+        EdgeList<V> edges = new EdgeList<>(graph);
+        int vertices = edges.numberOfVertices();
+        DisjointSet sets = new DisjointSet(vertices);
+        int[] component = new int[vertices];
+        AtomicLongArray lightest = new AtomicLongArray(vertices);
+        int[] remaining = IntStream.range(0, edges.size()).toArray();
+
+        mst = Graph.getDefaultSet();
+        while (remaining.length > 0) {
+            if (budget != null && !budget.consumeEdges(remaining.length))
+                break;
+
+            for (int i = 0; i < vertices; i++)
+                component[i] = sets.find(i);
+
+            remaining = IntStream.of(remaining).parallel()
+                    .filter(edge -> component[edges.source(edge)] != component[edges.destination(edge)])
+                    .toArray();
+
+            for (int i = 0; i < vertices; i++)
+                lightest.set(i, NONE);
+            IntStream.of(remaining).parallel().forEach(edge -> {
+                long key = edges.key(edge);
+                lightest.accumulateAndGet(component[edges.source(edge)], key, Math::min);
+                lightest.accumulateAndGet(component[edges.destination(edge)], key, Math::min);
+            });
+
+            for (int i = 0; i < vertices; i++) {
+                long key = lightest.get(i);
+                if (key == NONE)
+                    continue;
+
+                int edge = EdgeList.edgeOf(key);
+                if (sets.union(edges.source(edge), edges.destination(edge)))
+                    mst.add(edges.getEdge(edge));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,237 @@
+package net.berack.upo.graph.visit;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A {@link VisitInfo} that keeps the data of the vertices in arrays of primitives instead of an object for each vertex.<br>
+ * Every vertex gets a slot when it is discovered, so the only map is the one from the vertices to their slots,
+ * and the data of the vertex is in its slot of every array. The arrays grow with the vertices discovered,
+ * so a visit of a small part of a huge graph allocates only for that part.
+ * The order of the events is also saved, so the iterations in time order don't need any sorting.<br>
+ * The methods are not synchronized, so the info must be filled by only one thread.
+ *
+ * @param <V> the vertex of the visit
+ * @author Berack96
+ */
+public class CompactVisitInfo<V> extends VisitInfo<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Map<V, Integer> slots;
+    private Object[] vertices;
+    private long[] discover;
+    private long[] visit;
+    private int[] parent;
+    private int[] depth;
+    private int[] events;
+    private int time;
+
+    /**
+     * Create the info of a visit from the source passed.
+     *
+     * @param source the source of the visit
+     * @throws NullPointerException if the source is null
+     */
+    public CompactVisitInfo(V source) throws NullPointerException {
+        this(source, null);
+    }
+
+    /**
+     * Create the info of a visit from the source passed, that sends an event to the observer every time it changes.
+     *
+     * @param source   the source of the visit
+     * @param observer the function that receives the events, or null
+     * @throws NullPointerException if the source is null
+     */
+    public CompactVisitInfo(V source, Consumer<? super VisitEvent<V>> observer) throws NullPointerException {
+        super(source, false, observer);
+
+        this.slots = new HashMap<>();
+        this.vertices = new Object[INITIAL_CAPACITY];
+        this.discover = new long[INITIAL_CAPACITY];
+        this.visit = new long[INITIAL_CAPACITY];
+        this.parent = new int[INITIAL_CAPACITY];
+        this.depth = new int[INITIAL_CAPACITY];
+        this.events = new int[INITIAL_CAPACITY * 2];
+        this.time = 0;
+        add(source);
+    }
+
+    @Override
+    void setVisited(V vertex) {
+        int slot = discover(vertex, NOT_SET);
+        if (visit[slot] != NOT_SET)
+            return;
+
+        visit[slot] = time;
+        if (isObserved())
+            emit(VisitEvent.Type.VISIT, vertex, null, time);
+        events[time++] = ~slot;
+    }
+
+    @Override
+    void setDiscovered(V vertex) {
+        discover(vertex, NOT_SET);
+    }
+
+    @Override
+    void setParent(V father, V child) throws IllegalArgumentException {
+        Integer fatherSlot = slots.get(father);
+        if (fatherSlot == null)
+            throw new IllegalArgumentException(String.valueOf(father));
+
+        int slot = discover(child, fatherSlot);
+        parent[slot] = fatherSlot;
+        depth[slot] = depth[fatherSlot] + 1;
+    }
+
+    @Override
+    public V getParentOf(V vertex) throws IllegalArgumentException {
+        int slot = discovered(vertex);
+        return parent[slot] == NOT_SET ? null : vertex(parent[slot]);
+    }
+
+    @Override
+    public long getTimeDiscover(V vertex) throws IllegalArgumentException, NullPointerException {
+        return discover[discovered(vertex)];
+    }
+
+    @Override
+    public long getTimeVisit(V vertex) throws IllegalArgumentException, NullPointerException {
+        int slot = discovered(vertex);
+        if (visit[slot] == NOT_SET)
+            throw new IllegalArgumentException();
+        return visit[slot];
+    }
+
+    @Override
+    public long getDepth(V vertex) throws IllegalArgumentException, NullPointerException {
+        return depth[discovered(vertex)];
+    }
+
+    @Override
+    public boolean isDiscovered(V vertex) throws NullPointerException {
+        return vertex != null && slots.containsKey(vertex);
+    }
+
+    @Override
+    public boolean isVisited(V vertex) throws NullPointerException {
+        Integer slot = vertex == null ? null : slots.get(vertex);
+        return slot != null && visit[slot] != NOT_SET;
+    }
+
+    @Override
+    public Set<V> getVisited() {
+        Set<V> visited = new HashSet<>();
+        for (int i = 0; i < time; i++)
+            if (events[i] < 0)
+                visited.add(vertex(~events[i]));
+        return visited;
+    }
+
+    @Override
+    public Set<V> getDiscovered() {
+        return new HashSet<>(slots.keySet());
+    }
+
+    @Override
+    public void forEachDiscovered(Consumer<? super VertexInfo> consumer) {
+        for (int i = 0; i < time; i++)
+            if (events[i] >= 0)
+                consumer.accept(info(events[i], false));
+    }
+
+    @Override
+    public void forEachVisited(Consumer<? super VertexInfo> consumer) {
+        for (int i = 0; i < time; i++)
+            if (events[i] < 0)
+                consumer.accept(info(~events[i], true));
+    }
+
+    @Override
+    public Iterator<VertexInfo> iterator() {
+        List<VertexInfo> list = new ArrayList<>(time);
+        for (int i = 0; i < time; i++)
+            list.add(events[i] >= 0 ? info(events[i], false) : info(~events[i], true));
+        return list.iterator();
+    }
+
+    /**
+     * Set the vertex as "discovered" by the parent passed, giving it a slot, without changing the parent.
+     *
+     * @return the slot of the vertex
+     */
+    private int discover(V vertex, int father) {
+        Integer old = slots.get(vertex);
+        if (old != null)
+            return old;
+
+        int slot = add(vertex);
+        if (isObserved())
+            emit(VisitEvent.Type.DISCOVER, vertex, father == NOT_SET ? null : vertex(father), discover[slot]);
+        return slot;
+    }
+
+    /**
+     * Give a slot to a new vertex and set it as "discovered", without sending any event.
+     *
+     * @return the slot of the vertex
+     */
+    private int add(V vertex) {
+        int slot = slots.size();
+        if (slot == vertices.length)
+            grow();
+        slots.put(vertex, slot);
+        vertices[slot] = vertex;
+        discover[slot] = time;
+        visit[slot] = NOT_SET;
+        parent[slot] = NOT_SET;
+        depth[slot] = 0;
+        events[time++] = slot;
+        return slot;
+    }
+
+    /**
+     * Double the size of all the arrays.
+     */
+    private void grow() {
+        int capacity = vertices.length * 2;
+        vertices = Arrays.copyOf(vertices, capacity);
+        discover = Arrays.copyOf(discover, capacity);
+        visit = Arrays.copyOf(visit, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+        events = Arrays.copyOf(events, capacity * 2);
+    }
+
+    /**
+     * Get the slot of a vertex already discovered.
+     *
+     * @throws IllegalArgumentException if the vertex is not discovered
+     * @throws NullPointerException if the vertex is null
+     */
+    private int discovered(V vertex) throws IllegalArgumentException, NullPointerException {
+        if (vertex == null)
+            throw new NullPointerException();
+        Integer slot = slots.get(vertex);
+        if (slot == null)
+            throw new IllegalArgumentException();
+        return slot;
+    }
+
+    /**
+     * Get the vertex in the slot passed.
+     */
+    @SuppressWarnings("unchecked")
+    private V vertex(int slot) {
+        return (V) vertices[slot];
+    }
+
+    /**
+     * Create the object with the info of the vertex in the slot passed.
+     */
+    private VertexInfo info(int slot, boolean compareVisited) {
+        V father = parent[slot] == NOT_SET ? null : vertex(parent[slot]);
+        return new VertexInfo(vertex(slot), father, discover[slot], visit[slot], depth[slot], compareVisited);
+    }
+}
@@ -0,0 +1,162 @@
+package net.berack.upo.graph.visit;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphUndirected;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitStrategy;
+import net.berack.upo.graph.visit.struct.ConcurrentDisjointSet;
+import net.berack.upo.graph.visit.struct.DisjointSet;
+import net.berack.upo.graph.visit.struct.EdgeList;
+
+/**
+ * Class that finds the connected components of a {@link GraphUndirected}.<br>
+ * The edges are read once into an {@link EdgeList} and their endpoints are merged in a {@link DisjointSet},
+ * or in a {@link ConcurrentDisjointSet} split in chunks between the cores if a parallelism greater than 1 is set.<br>
+ * The result is available both as a compact labeling, where the i-th vertex of the graph has
+ * the component {@link #getComponentIds()}[i], and as the usual Set of Sets.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class Components<V> implements VisitStrategy<V> {
+
+    private int parallelism = 1;
+    private VisitBudget budget = null;
+    private List<V> vertices = null;
+    private int[] ids = null;
+    private int components = 0;
+
+    /**
+     * Set in how many chunks the edges are split for merging them in parallel.<br>
+     * With 1 (the default) everything is done by the calling thread.
+     *
+     * @param parallelism the number of chunks
+     * @return this instance
+     * @throws IllegalArgumentException if the parallelism is less than 1
+     */
+    public Components<V> setParallelism(int parallelism) throws IllegalArgumentException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException();
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * In parallel the edges of a chunk are asked all together. When the budget runs out the remaining edges are skipped,
+     * so a component could be found split in more parts; use {@link VisitBudget#isExhausted()} for knowing if it is complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public Components<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Get the component of every vertex of the last visit.<br>
+     * The components are numbered from 0 to {@link #getNumberOfComponents()} - 1 in the order
+     * in which they are found by iterating the graph, and the i-th value is the component of {@link #getVertex(int)}.
+     *
+     * @return the labels of the components or null if the visit is not already been done
+     */
+    public int[] getComponentIds() {
+        return ids;
+    }
+
+    /**
+     * Get the vertex with the index passed in the last visit.<br>
+     * The vertices have the same order of the iterator of the graph.
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     * @throws NullPointerException if the visit is not already been done
+     */
+    public V getVertex(int index) throws NullPointerException {
+        return vertices.get(index);
+    }
+
+    /**
+     * Get how many components are been found in the last visit.
+     *
+     * @return the number of components
+     */
+    public int getNumberOfComponents() {
+        return components;
+    }
+
+    /**
+     * Build the components of the last visit as sets of vertices.
+     *
+     * @return a Set containing the connected components or null if the visit is not already been done
+     */
+    public Set<Set<V>> getCC() {
+        if (ids == null)
+            return null;
+
+        List<Set<V>> sets = new ArrayList<>(components);
+        for (int i = 0; i < components; i++)
+            sets.add(Graph.getDefaultSet());
+        for (int i = 0; i < ids.length; i++)
+            sets.get(ids[i]).add(vertices.get(i));
+        return new HashSet<>(sets);
+    }
+
+    /**
+     * This particular visit strategy use only the graph and the visit, so the source param is not needed.<br>
+     * The visit function is applied to every vertex, in the order of the iterator of the graph, once the components are found.
+     *
+     * @param graph  the graph to visit
+     * @param source not needed
+     * @param visit  the function to apply at each vertex
+     * @return null, since there is no visit info
+     * @throws NullPointerException if the graph is null
+     */
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException {
+        EdgeList<V> edges = new EdgeList<>(graph);
+        int size = edges.numberOfVertices();
+        int[] roots = new int[size];
+
+        if (parallelism > 1 && edges.size() > parallelism) {
+            ConcurrentDisjointSet sets = new ConcurrentDisjointSet(size);
+            int chunk = (edges.size() + parallelism - 1) / parallelism;
+            IntStream.range(0, parallelism).parallel().forEach(c -> {
+                int end = Math.min(edges.size(), (c + 1) * chunk);
+                if (budget != null && end > c * chunk && !budget.consumeEdges(end - c * chunk))
+                    return;
+                for (int i = c * chunk; i < end; i++)
+                    sets.union(edges.source(i), edges.destination(i));
+            });
+            for (int i = 0; i < size; i++)
+                roots[i] = sets.find(i);
+        } else {
+            DisjointSet sets = new DisjointSet(size);
+            for (int i = 0; i < edges.size() && (budget == null || budget.consumeEdge()); i++)
+                sets.union(edges.source(i), edges.destination(i));
+            for (int i = 0; i < size; i++)
+                roots[i] = sets.find(i);
+        }
+
+        int[] labels = new int[size];
+        Arrays.fill(labels, -1);
+        components = 0;
+        ids = new int[size];
+        vertices = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (labels[roots[i]] == -1)
+                labels[roots[i]] = components++;
+            ids[i] = labels[roots[i]];
+            vertices.add(edges.getVertex(i));
+        }
+
+        if (visit != null)
+            vertices.forEach(visit);
+        return null;
+    }
+}
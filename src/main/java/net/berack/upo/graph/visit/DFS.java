@@ -1,49 +1,194 @@
 package net.berack.upo.graph.visit;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Stack;
+import java.util.Set;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import net.berack.upo.Graph;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitControl;
 import net.berack.upo.graph.VisitStrategy;
 
 /**
  * Depth-first search<br>
- * The algorithm starts at the root node and explores as far as possible along each branch before backtracking.
+ * The algorithm starts at the root node and explores as far as possible along each branch before backtracking.<br>
+ * The stack keeps, for every vertex on the current path, the iterator of its children,
+ * so the children of each vertex are asked to the graph and scanned only once.<br>
+ * Other than the visit function, that is called when a vertex is visited, a pre-order function (called when a vertex
+ * is discovered) and a post-order function (called when all the descendants of a vertex are visited) can be set.<br>
+ * The visit can be steered with a control function, asked for each vertex right after the pre-order one,
+ * and with an edge filter that hides the edges that must not be followed.
  *
  * @param <V> the vertex of the graph
  * @author Berack96
  */
 public class DFS<V> implements VisitStrategy<V> {
 
+    private Consumer<V> preOrder = null;
+    private Consumer<V> postOrder = null;
+    private boolean trackInfo = true;
+    private Function<V, VisitControl> control = null;
+    private BiPredicate<V, V> edgeFilter = null;
+    private VisitBudget budget = null;
+
+    /**
+     * Set the function called for every vertex when it is discovered, source included.
+     *
+     * @param preOrder the function or null for none
+     * @return this instance
+     */
+    public DFS<V> setPreOrder(Consumer<V> preOrder) {
+        this.preOrder = preOrder;
+        return this;
+    }
+
+    /**
+     * Set the function called for every vertex when all its descendants are visited, right before the visit function.
+     *
+     * @param postOrder the function or null for none
+     * @return this instance
+     */
+    public DFS<V> setPostOrder(Consumer<V> postOrder) {
+        this.postOrder = postOrder;
+        return this;
+    }
+
+    /**
+     * Choose if the visit has to fill a {@link VisitInfo}.<br>
+     * If not, only the discovered vertices and the stack are kept, and the visit returns null.
+     *
+     * @param track true (the default) for having the info of the visit
+     * @return this instance
+     */
+    public DFS<V> setTrackInfo(boolean track) {
+        this.trackInfo = track;
+        return this;
+    }
+
+    /**
+     * Set the function called for every vertex when it is discovered, source included.<br>
+     * With {@link VisitControl#SKIP_CHILDREN} the vertex is visited right away without exploring its children,
+     * while with {@link VisitControl#STOP} the visit returns immediately, leaving the vertices on the stack not visited.
+     *
+     * @param control the function or null for always continue
+     * @return this instance
+     */
+    public DFS<V> setControl(Function<V, VisitControl> control) {
+        this.control = control;
+        return this;
+    }
+
+    /**
+     * Set a filter for the edges, asked with the vertex and its child before the child is considered.<br>
+     * If the filter returns false the edge is not followed.
+     *
+     * @param edgeFilter the filter or null for following all the edges
+     * @return this instance
+     */
+    public DFS<V> setEdgeFilter(BiPredicate<V, V> edgeFilter) {
+        this.edgeFilter = edgeFilter;
+        return this;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops, leaving the vertices on the stack not visited, and the info returned is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public DFS<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
     @Override
     public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, IllegalArgumentException {
-        VisitInfo<V> info = new VisitInfo<>(source);
-        final Stack<V> toVisit = new Stack<>();
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, IllegalArgumentException {
+        VisitInfo<V> info = trackInfo ? new VisitInfo<>(source, observer) : null;
+        Set<V> discovered = trackInfo ? null : new HashSet<>();
+        final Deque<Frame> toVisit = new ArrayDeque<>();
 
-        toVisit.push(source);
+        if (discovered != null)
+            discovered.add(source);
+        if (budget != null && !budget.consumeVertex())
+            return VisitInfo.incomplete(info);
+        if (!discover(graph, toVisit, source))
+            return info;
 
         while (!toVisit.isEmpty()) {
-            V current = toVisit.peek();
-            boolean hasChildToVisit = false;
-            Iterator<V> iter = graph.getChildren(current).iterator();
-
-            while (iter.hasNext() && !hasChildToVisit) {
-                V child = iter.next();
-                if (!info.isDiscovered(child)) {
-                    hasChildToVisit = true;
-                    toVisit.push(child);
-                    info.setParent(current, child);
-                }
+            Frame frame = toVisit.peek();
+            V current = frame.vertex;
+            V next = null;
+
+            while (next == null && frame.children.hasNext()) {
+                if (budget != null && !budget.consumeEdge())
+                    return VisitInfo.incomplete(info);
+
+                V child = frame.children.next();
+                if ((edgeFilter == null || edgeFilter.test(current, child))
+                        && (info != null ? !info.isDiscovered(child) : discovered.add(child)))
+                    next = child;
             }
 
-            if (!hasChildToVisit) {
+            if (next != null) {
+                if (budget != null && !budget.consumeVertex())
+                    return VisitInfo.incomplete(info);
+                if (info != null)
+                    info.setParent(current, next);
+                if (!discover(graph, toVisit, next))
+                    return info;
+            } else {
                 toVisit.pop();
-                info.setVisited(current);
+                if (info != null)
+                    info.setVisited(current);
+                if (postOrder != null)
+                    postOrder.accept(current);
                 if (visit != null)
                     visit.accept(current);
             }
         }
         return info;
     }
+
+    /**
+     * Call the pre-order and the control functions for the vertex and then put it on the stack.
+     *
+     * @return false if the visit must stop
+     */
+    private boolean discover(Graph<V> graph, Deque<Frame> toVisit, V vertex) {
+        if (preOrder != null)
+            preOrder.accept(vertex);
+
+        VisitControl answer = control == null ? VisitControl.CONTINUE : control.apply(vertex);
+        if (answer == VisitControl.STOP)
+            return false;
+
+        Iterator<V> children = answer == VisitControl.SKIP_CHILDREN ? Collections.emptyIterator() : graph.getChildren(vertex).iterator();
+        toVisit.push(new Frame(vertex, children));
+        return true;
+    }
+
+    /**
+     * A vertex on the stack with the children still to check
+     */
+    private class Frame {
+        private final V vertex;
+        private final Iterator<V> children;
+
+        private Frame(V vertex, Iterator<V> children) {
+            this.vertex = vertex;
+            this.children = children;
+        }
+    }
 }
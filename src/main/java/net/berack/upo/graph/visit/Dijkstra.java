@@ -5,6 +5,7 @@ import java.util.function.Consumer;
 
 import net.berack.upo.Graph;
 import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitBudget;
 import net.berack.upo.graph.VisitDistance;
 
 /**
@@ -17,6 +18,8 @@ public class Dijkstra<V> implements VisitDistance<V> {
 
     private Map<V, List<Edge<V>>> distance = null;
     private V source = null;
+    private boolean trackInfo = true;
+    private VisitBudget budget = null;
 
     @Override
     public Map<V, List<Edge<V>>> getLastDistance() {
@@ -28,32 +31,79 @@ public class Dijkstra<V> implements VisitDistance<V> {
         return source;
     }
 
+    /**
+     * Choose if the visit has to fill a {@link VisitInfo}.<br>
+     * If not, only the distances are computed, and the visit returns null.
+     *
+     * @param track true (the default) for having the info of the visit
+     * @return this instance
+     */
+    public Dijkstra<V> setTrackInfo(boolean track) {
+        this.trackInfo = track;
+        return this;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops, the distances are only the ones of the vertices already settled
+     * (that are the best possible) and the info returned is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public Dijkstra<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
     @Override
     public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, IllegalArgumentException {
-        VisitInfo<V> info = new VisitInfo<>(source);
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, IllegalArgumentException {
+        VisitInfo<V> info = trackInfo ? new VisitInfo<>(source, observer) : null;
         Queue<QueueEntry> queue = new PriorityQueue<>();
         Map<V, Integer> dist = Graph.getDefaultMap();
         Map<V, V> prev = Graph.getDefaultMap();
+        Set<V> settled = budget == null ? null : new HashSet<>();
+        boolean complete = true;
 
         this.source = source;
         dist.put(source, 0);                // Initialization
         queue.add(new QueueEntry(source, 0));
 
-        while (!queue.isEmpty()) {                      // The main loop
+        while (complete && !queue.isEmpty()) {          // The main loop
             QueueEntry u = queue.poll();                    // Remove and return best vertex
+            if (budget != null) {
+                if (!budget.consumeVertex()) {
+                    complete = false;
+                    break;
+                }
+                settled.add(u.entry);
+            }
 
-            info.setVisited(u.entry);
+            if (info != null)
+                info.setVisited(u.entry);
             if (visit != null)
                 visit.accept(u.entry);
 
             for (V child : graph.getChildren(u.entry)) {
-                info.setDiscovered(child);
+                if (budget != null && !budget.consumeEdge()) {
+                    complete = false;
+                    break;
+                }
+                if (info != null)
+                    info.setDiscovered(child);
                 int alt = dist.get(u.entry) + graph.getWeight(u.entry, child);
                 Integer distCurrent = dist.get(child);
 
                 if (distCurrent == null || alt < distCurrent) {
                     dist.put(child, alt);
                     prev.put(child, u.entry);
+                    if (info != null)
+                        info.setRelaxed(u.entry, child, alt);
 
                     QueueEntry current = new QueueEntry(child, alt);
                     queue.remove(current);
@@ -65,20 +115,24 @@ public class Dijkstra<V> implements VisitDistance<V> {
         /* Cleaning up the results */
         distance = Graph.getDefaultMap();
         for (V vertex : prev.keySet()) {
+            if (!complete && !settled.contains(vertex))
+                continue;
+
             List<Edge<V>> path = new LinkedList<>();
             V child = vertex;
             V father = prev.get(child);
             do {
                 Edge<V> edge = new Edge<>(father, child, graph.getWeight(father, child));
                 path.add(0, edge);
-                info.setParent(father, child);
+                if (info != null)
+                    info.setParent(father, child);
                 child = father;
                 father = prev.get(child);
             } while (father != null);
 
             distance.put(vertex, new ArrayList<>(path));
         }
-        return info;
+        return complete ? info : VisitInfo.incomplete(info);
     }
 
     private class QueueEntry implements Comparable<QueueEntry> {
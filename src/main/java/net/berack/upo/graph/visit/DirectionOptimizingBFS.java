@@ -0,0 +1,134 @@
+package net.berack.upo.graph.visit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import net.berack.upo.Graph;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitStrategy;
+
+/**
+ * Breadth-first search that switches between top-down and bottom-up steps (Beamer et al.)<br>
+ * A top-down step scans the children of the vertices in the frontier, like {@link BFS}.
+ * A bottom-up step instead scans the ancestors of every vertex not yet discovered, stopping at the first one in the frontier.
+ * When the frontier is huge, as in the middle levels of low-diameter graphs, the bottom-up step touches far fewer edges.<br>
+ * The visit goes bottom-up when the edges of the frontier are more than the unexplored ones divided by {@link #ALPHA},
+ * and returns top-down when the vertices in the frontier are less than all the vertices divided by {@link #BETA}.<br>
+ * The visit runs on the graph passed, without copying it: the ancestors come from {@link Graph#getAncestors(Object)},
+ * so it pays off on the graphs that keep the in-edges of every vertex.
+ * The children of a vertex are asked once, when it joins the frontier, and the result is a {@link CompactVisitInfo}.
+ * The depth and the parent of every vertex are the one of a normal BFS, but inside a level the order of discovery could differ.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class DirectionOptimizingBFS<V> implements VisitStrategy<V> {
+    /**
+     * Top-down to bottom-up threshold
+     */
+    public static final int ALPHA = 14;
+    /**
+     * Bottom-up to top-down threshold
+     */
+    public static final int BETA = 24;
+
+    private int maxDepth = -1;
+    private VisitBudget budget = null;
+
+    /**
+     * Set the maximum depth of the visit.<br>
+     * The vertices farther than the depth passed from the source are not discovered.
+     *
+     * @param depth the maximum depth, or a negative number for no limits
+     * @return this instance
+     */
+    public DirectionOptimizingBFS<V> setMaxDepth(int depth) {
+        this.maxDepth = depth;
+        return this;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * The vertices of a level and their out-edges are asked all together before expanding it;
+     * when the budget runs out the visit stops and the info returned is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public DirectionOptimizingBFS<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, IllegalArgumentException {
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, IllegalArgumentException {
+        if (source == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+
+        if (!graph.contains(source))
+            throw new IllegalArgumentException(Graph.VERTEX_NOT_CONTAINED);
+
+        int size = graph.size();
+        CompactVisitInfo<V> info = new CompactVisitInfo<>(source, observer);
+        info.setVisited(source);
+        if (visit != null)
+            visit.accept(source);
+
+        Map<V, Set<V>> frontier = new LinkedHashMap<>();
+        frontier.put(source, graph.getChildren(source));
+        long frontierEdges = frontier.get(source).size();
+        long unexplored = graph.numberOfEdges() - frontierEdges;
+        boolean bottomUp = false;
+
+        for (int depth = 0; !frontier.isEmpty() && (maxDepth < 0 || depth < maxDepth); depth++) {
+            if (budget != null && !(budget.consumeVertices(frontier.size()) && budget.consumeEdges(frontierEdges)))
+                return VisitInfo.incomplete(info);
+
+            if (!bottomUp && frontierEdges > unexplored / ALPHA)
+                bottomUp = true;
+            else if (bottomUp && frontier.size() < size / BETA)
+                bottomUp = false;
+
+            Map<V, V> next = new LinkedHashMap<>();
+            if (bottomUp) {
+                for (V vertex : graph) {
+                    if (info.isDiscovered(vertex))
+                        continue;
+                    for (V ancestor : graph.getAncestors(vertex))
+                        if (frontier.containsKey(ancestor)) {
+                            next.put(vertex, ancestor);
+                            break;
+                        }
+                }
+            } else {
+                for (Map.Entry<V, Set<V>> entry : frontier.entrySet())
+                    for (V child : entry.getValue())
+                        if (!info.isDiscovered(child))
+                            next.putIfAbsent(child, entry.getKey());
+            }
+
+            frontier = new LinkedHashMap<>();
+            frontierEdges = 0;
+            for (Map.Entry<V, V> entry : next.entrySet()) {
+                V current = entry.getKey();
+                info.setParent(entry.getValue(), current);
+                info.setVisited(current);
+                if (visit != null)
+                    visit.accept(current);
+
+                Set<V> children = graph.getChildren(current);
+                frontier.put(current, children);
+                frontierEdges += children.size();
+            }
+            unexplored -= frontierEdges;
+        }
+        return info;
+    }
+}
@@ -0,0 +1,227 @@
+package net.berack.upo.graph.visit;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphUndirected;
+import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitMST;
+import net.berack.upo.graph.visit.struct.LinkCutTree;
+import net.berack.upo.graph.visit.struct.QuickUnion;
+import net.berack.upo.graph.visit.struct.UnionFind;
+
+/**
+ * Minimum spanning forest of a {@link GraphUndirected} that is kept updated while the edges change.<br>
+ * The visit computes the forest of the graph passed, then the graph must be modified only through
+ * {@link #addEdge(Object, Object, int)} and {@link #removeEdge(Object, Object)}, that update both the graph and the forest.<br>
+ * The forest is kept in a {@link LinkCutTree}: an insertion asks for the heaviest edge on the path between the endpoints
+ * and replaces it if the new edge is lighter, while a deletion of an edge of the forest looks for
+ * a replacement only between the edges of the smaller of the two trees created by the cut.<br>
+ * Ties between the weights are broken like in {@link Kruskal}, by the edges ordered with {@link Graph#OBJECT_COMPARATOR}
+ * and oriented as in {@link GraphUndirected#getEdge(Object, Object)}, so the forest doesn't depend on the order
+ * of the updates and it is always the same one computed by {@link Kruskal}.
+ *
+ * @param <V> The vertex of the graph
+ */
+public class DynamicMST<V> implements VisitMST<V> {
+    private Graph<V> graph;
+    private Set<Edge<V>> mst;
+    private LinkCutTree tree;
+    private Map<V, Integer> nodes;
+    private Map<V, Map<V, Link>> links;
+    private Map<Integer, Link> forest;
+
+    @Override
+    public Set<Edge<V>> getMST() {
+        return mst;
+    }
+
+    /**
+     * Compute the minimum spanning forest of the graph and start to keep it updated.<br>
+     * The source is not needed.
+     *
+     * @param graph  the graph to visit
+     * @param source not needed
+     * @param visit  not used
+     * @return null, since there is no visit info
+     * @throws NullPointerException if the graph is null
+     */
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException {
+        this.graph = graph;
+        this.mst = Graph.getDefaultSet();
+        this.tree = new LinkCutTree();
+        this.nodes = new HashMap<>(graph.size() * 2);
+        this.links = new HashMap<>(graph.size() * 2);
+        this.forest = new HashMap<>(graph.size() * 2);
+
+        for (V vertex : graph)
+            node(vertex);
+
+        List<Link> sorted = new ArrayList<>();
+        for (Edge<V> edge : graph.edges()) {
+            Link link = new Link(edge);
+            links.get(edge.getSource()).put(edge.getDestination(), link);
+            links.get(edge.getDestination()).put(edge.getSource(), link);
+            sorted.add(link);
+        }
+
+        sorted.sort(Comparator.comparingLong(link -> link.key));
+        UnionFind<V> sets = new QuickUnion<>();
+        sets.makeSetAll(nodes.keySet());
+        for (Link link : sorted)
+            if (sets.union(link.edge.getSource(), link.edge.getDestination()))
+                addToForest(link);
+        return null;
+    }
+
+    /**
+     * Add an edge to the graph and update the forest.<br>
+     * If one of the two, or both vertices aren't contained in the graph, then the vertices will be added.<br>
+     * If there was already an edge between the two vertices, it is replaced.<br>
+     * If the weight is {@link Graph#NO_EDGE} then the edge is removed.
+     *
+     * @param vertex1 a vertex of the graph
+     * @param vertex2 a vertex of the graph
+     * @param weight  the weight of the edge
+     * @return 0 or the previous weight of the edge if there was already one
+     * @throws NullPointerException  if one of the parameter is null
+     * @throws IllegalStateException if the visit is not already been done
+     */
+    public int addEdge(V vertex1, V vertex2, int weight) throws NullPointerException, IllegalStateException {
+        if (graph == null)
+            throw new IllegalStateException();
+        if (weight == Graph.NO_EDGE)
+            return removeEdge(vertex1, vertex2);
+
+        int old = graph.addEdgeAndVertices(vertex1, vertex2, weight);
+        int node1 = node(vertex1);
+        int node2 = node(vertex2);
+        delete(vertex1, vertex2);
+
+        Link link = new Link(graph instanceof GraphUndirected<V> undirected
+                ? undirected.getEdge(vertex1, vertex2)
+                : new Edge<>(vertex1, vertex2, weight));
+        links.get(vertex1).put(vertex2, link);
+        links.get(vertex2).put(vertex1, link);
+
+        if (!tree.connected(node1, node2))
+            addToForest(link);
+        else {
+            int heaviest = tree.pathMax(node1, node2);
+            if (heaviest != LinkCutTree.NONE && link.key < tree.getKey(heaviest)) {
+                removeFromForest(forest.get(heaviest));
+                addToForest(link);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Remove the edge from the graph and update the forest.<br>
+     * If the edge doesn't exist, then this call does nothing.
+     *
+     * @param vertex1 a vertex of the graph
+     * @param vertex2 a vertex of the graph
+     * @return 0 or the previous weight of the edge if there was one
+     * @throws NullPointerException     if one of the parameter is null
+     * @throws IllegalArgumentException if one of the vertex is not contained in the graph
+     * @throws IllegalStateException    if the visit is not already been done
+     */
+    public int removeEdge(V vertex1, V vertex2) throws NullPointerException, IllegalArgumentException, IllegalStateException {
+        if (graph == null)
+            throw new IllegalStateException();
+
+        int old = graph.getWeight(vertex1, vertex2);
+        graph.removeEdge(vertex1, vertex2);
+        delete(vertex1, vertex2);
+        return old;
+    }
+
+    /**
+     * Remove the link between the two vertices and, if it was in the forest, search for a replacement.
+     */
+    private void delete(V vertex1, V vertex2) {
+        Link link = links.get(vertex1).remove(vertex2);
+        if (link == null)
+            return;
+        links.get(vertex2).remove(vertex1);
+        if (link.node == LinkCutTree.NONE)
+            return;
+
+        removeFromForest(link);
+        Set<V> smaller = smallerTree(vertex1, vertex2);
+        Link replacement = null;
+        for (V vertex : smaller)
+            for (Map.Entry<V, Link> entry : links.get(vertex).entrySet()) {
+                Link candidate = entry.getValue();
+                if (candidate.node == LinkCutTree.NONE && !smaller.contains(entry.getKey())
+                        && (replacement == null || candidate.key < replacement.key))
+                    replacement = candidate;
+            }
+
+        if (replacement != null)
+            addToForest(replacement);
+    }
+
+    /**
+     * Visit the trees of the two vertices at the same pace, and stop as soon as one of the two is complete.
+     *
+     * @return the vertices of the smaller tree
+     */
+    private Set<V> smallerTree(V vertex1, V vertex2) {
+        List<Set<V>> visited = List.of(new HashSet<>(List.of(vertex1)), new HashSet<>(List.of(vertex2)));
+        List<Deque<V>> queues = List.of(new ArrayDeque<>(List.of(vertex1)), new ArrayDeque<>(List.of(vertex2)));
+
+        for (int turn = 0; ; turn = 1 - turn) {
+            Deque<V> queue = queues.get(turn);
+            Set<V> set = visited.get(turn);
+            if (queue.isEmpty())
+                return set;
+
+            V current = queue.poll();
+            links.get(current).forEach((child, link) -> {
+                if (link.node != LinkCutTree.NONE && set.add(child))
+                    queue.add(child);
+            });
+        }
+    }
+
+    private void addToForest(Link link) {
+        link.node = tree.addNode(link.key);
+        tree.link(nodes.get(link.edge.getSource()), link.node);
+        tree.link(link.node, nodes.get(link.edge.getDestination()));
+        forest.put(link.node, link);
+        mst.add(link.edge);
+    }
+
+    private void removeFromForest(Link link) {
+        tree.cut(nodes.get(link.edge.getSource()), link.node);
+        tree.cut(link.node, nodes.get(link.edge.getDestination()));
+        tree.removeNode(link.node);
+        forest.remove(link.node);
+        link.node = LinkCutTree.NONE;
+        mst.remove(link.edge);
+    }
+
+    private int node(V vertex) {
+        links.computeIfAbsent(vertex, _ -> new HashMap<>());
+        return nodes.computeIfAbsent(vertex, _ -> tree.addNode());
+    }
+
+    /**
+     * An edge of the graph, with the node that represents it in the tree if it is in the forest
+     */
+    private class Link {
+        private final Edge<V> edge;
+        private final long key;
+        private int node = LinkCutTree.NONE;
+
+        private Link(Edge<V> edge) {
+            this.edge = edge;
+            // the sign of the hash is flipped, so the unsigned bits follow the signed order of OBJECT_COMPARATOR
+            this.key = ((long) edge.getWeight() << 32) | ((edge.hashCode() ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+    }
+}
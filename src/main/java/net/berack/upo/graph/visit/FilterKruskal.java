@@ -0,0 +1,134 @@
+package net.berack.upo.graph.visit;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import net.berack.upo.Graph;
+import net.berack.upo.GraphUndirected;
+import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitMST;
+import net.berack.upo.graph.visit.struct.DisjointSet;
+import net.berack.upo.graph.visit.struct.EdgeList;
+
+/**
+ * Variant of {@link Kruskal} for the minimum spanning forest of a {@link GraphUndirected}
+ * that avoids sorting the edges that will be rejected anyway.<br>
+ * The edges are partitioned around a pivot like in quicksort: the lighter half is solved first,
+ * then the heavier half is filtered by removing the edges whose endpoints are already connected,
+ * and only what survives is partitioned again.<br>
+ * Small partitions are sorted with {@link Arrays#parallelSort(long[], int, int)} on primitive keys made of weight and index.<br>
+ * The ties between the weights are broken by the order of {@link Graph#edges()},
+ * so the result is the same as the one of {@link Kruskal}.
+ *
+ * @param <V> The vertex of the graph
+ */
+public class FilterKruskal<V> implements VisitMST<V> {
+    private static final int MIN_THRESHOLD = 1 << 10;
+
+    private Set<Edge<V>> mst;
+    private EdgeList<V> edges;
+    private DisjointSet sets;
+    private int threshold;
+    private VisitBudget budget = null;
+
+    @Override
+    public Set<Edge<V>> getMST() {
+        return mst;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops and the forest has only the edges chosen so far;
+     * use {@link VisitBudget#isExhausted()} for knowing if it is complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public FilterKruskal<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException {
+        edges = new EdgeList<>(graph);
+        sets = new DisjointSet(edges.numberOfVertices());
+        threshold = Math.max(MIN_THRESHOLD, edges.numberOfVertices());
+        mst = Graph.getDefaultSet();
+
+        long[] keys = new long[edges.size()];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = edges.key(i);
+        filterKruskal(keys, 0, keys.length);
+
+        edges = null;
+        sets = null;
+        return null;
+    }
+
+    private void filterKruskal(long[] keys, int from, int to) {
+        if (from >= to || sets.size() == 1 || (budget != null && budget.isExhausted()))
+            return;
+        if (to - from <= threshold) {
+            Arrays.parallelSort(keys, from, to);
+            kruskal(keys, from, to);
+            return;
+        }
+
+        long pivot = median(keys[from], keys[(from + to) >>> 1], keys[to - 1]);
+        int mid = partition(keys, from, to, pivot);
+        filterKruskal(keys, from, mid);
+        filterKruskal(keys, mid, filter(keys, mid, to));
+    }
+
+    private void kruskal(long[] keys, int from, int to) {
+        for (int i = from; i < to && sets.size() > 1; i++) {
+            if (budget != null && !budget.consumeEdge())
+                return;
+
+            int edge = EdgeList.edgeOf(keys[i]);
+            if (sets.union(edges.source(edge), edges.destination(edge)))
+                mst.add(edges.getEdge(edge));
+        }
+    }
+
+    /**
+     * Move all the keys lower or equal to the pivot at the start of the range.
+     *
+     * @return the index of the first key greater than the pivot
+     */
+    private int partition(long[] keys, int from, int to, long pivot) {
+        int i = from, j = to - 1;
+        while (i <= j) {
+            if (keys[i] <= pivot)
+                i++;
+            else {
+                long temp = keys[i];
+                keys[i] = keys[j];
+                keys[j--] = temp;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Remove from the range all the edges whose endpoints are already in the same tree.
+     *
+     * @return the end of the range with only the remaining edges
+     */
+    private int filter(long[] keys, int from, int to) {
+        int end = from;
+        for (int i = from; i < to; i++) {
+            int edge = EdgeList.edgeOf(keys[i]);
+            if (!sets.connected(edges.source(edge), edges.destination(edge)))
+                keys[end++] = keys[i];
+        }
+        return end;
+    }
+
+    private static long median(long a, long b, long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+}
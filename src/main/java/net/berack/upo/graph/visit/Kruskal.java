@@ -6,8 +6,9 @@ import java.util.function.Consumer;
 import net.berack.upo.Graph;
 import net.berack.upo.GraphUndirected;
 import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitBudget;
 import net.berack.upo.graph.VisitMST;
-import net.berack.upo.graph.visit.struct.QuickFind;
+import net.berack.upo.graph.visit.struct.QuickUnion;
 import net.berack.upo.graph.visit.struct.UnionFind;
 
 /**
@@ -18,15 +19,29 @@ import net.berack.upo.graph.visit.struct.UnionFind;
  */
 public class Kruskal<V> implements VisitMST<V> {
     private Set<Edge<V>> mst;
+    private VisitBudget budget = null;
 
     @Override
     public Set<Edge<V>> getMST() {
         return mst;
     }
 
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops and the forest has only the edges chosen so far;
+     * use {@link VisitBudget#isExhausted()} for knowing if it is complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public Kruskal<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
     @Override
     public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException {
-        UnionFind<V> sets = new QuickFind<>();
+        UnionFind<V> sets = new QuickUnion<>();
         sets.makeSetAll(graph.vertices());
 
         List<Edge<V>> edges = new ArrayList<>(graph.edges());
@@ -35,6 +50,9 @@ public class Kruskal<V> implements VisitMST<V> {
         mst = Graph.getDefaultSet();
         Iterator<Edge<V>> iter = edges.iterator();
         while (iter.hasNext() && sets.size() > 1) {
+            if (budget != null && !budget.consumeEdge())
+                break;
+
             Edge<V> edge = iter.next();
             if (sets.union(edge.getSource(), edge.getDestination()))
                 mst.add(edge);
@@ -0,0 +1,173 @@
+package net.berack.upo.graph.visit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.berack.upo.Graph;
+import net.berack.upo.graph.visit.struct.CompactGraph;
+
+/**
+ * Multi-source bit-parallel breadth-first search (MS-BFS)<br>
+ * Many breadth-first searches are done at the same time, sharing the scan of the children of every vertex.
+ * Each vertex has a word of bits for every 64 sources, telling which searches have already seen it and which ones
+ * have it in their frontier; a level is then expanded by OR-ing the frontier words of a vertex into the ones of its children.<br>
+ * The result is a table with the depth of every vertex for each source.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class MultiSourceBFS<V> {
+    /**
+     * Value of the depth table for the vertices not reached by a source
+     */
+    public static final int NOT_REACHED = -1;
+
+    private int maxDepth = -1;
+    private CompactGraph<V> graph = null;
+    private List<V> sources = null;
+    private Map<V, Integer> sourceIndex = null;
+    private int[][] depths = null;
+
+    public MultiSourceBFS<V> setMaxDepth(int depth) {
+        this.maxDepth = depth;
+        return this;
+    }
+
+    /**
+     * Do a breadth-first search from every source passed.<br>
+     * The duplicated sources are visited only once.
+     *
+     * @param graph   the graph to visit
+     * @param sources the sources of the visits
+     * @return this instance
+     * @throws NullPointerException     if the graph, the sources or one of them are null
+     * @throws IllegalArgumentException if one of the sources is not contained in the graph
+     */
+    public MultiSourceBFS<V> visit(Graph<V> graph, Collection<V> sources) throws NullPointerException, IllegalArgumentException {
+        if (graph == null || sources == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+
+        CompactGraph<V> compact = new CompactGraph<>(graph);
+        List<V> list = new ArrayList<>(sources.size());
+        Map<V, Integer> index = new HashMap<>();
+        for (V source : sources) {
+            if (source == null)
+                throw new NullPointerException(Graph.PARAM_NULL);
+            if (compact.indexOf(source) == null)
+                throw new IllegalArgumentException(Graph.VERTEX_NOT_CONTAINED);
+            if (index.putIfAbsent(source, list.size()) == null)
+                list.add(source);
+        }
+
+        int size = compact.size();
+        int words = (list.size() + 63) >>> 6;
+        long[] seen = new long[size * words];
+        long[] frontier = new long[size * words];
+        long[] next = new long[size * words];
+        int[][] table = new int[list.size()][size];
+
+        for (int i = 0; i < list.size(); i++) {
+            int vertex = compact.indexOf(list.get(i));
+            int pos = vertex * words + (i >>> 6);
+            seen[pos] |= 1L << i;
+            frontier[pos] |= 1L << i;
+            Arrays.fill(table[i], NOT_REACHED);
+            table[i][vertex] = 0;
+        }
+
+        boolean active = !list.isEmpty();
+        for (int depth = 1; active && (maxDepth < 0 || depth <= maxDepth); depth++) {
+            for (int vertex = 0; vertex < size; vertex++) {
+                int base = vertex * words;
+                for (int w = 0; w < words; w++) {
+                    long bits = frontier[base + w];
+                    if (bits == 0)
+                        continue;
+                    for (int i = compact.childrenStart(vertex); i < compact.childrenEnd(vertex); i++)
+                        next[compact.child(i) * words + w] |= bits;
+                }
+            }
+
+            active = false;
+            for (int vertex = 0; vertex < size; vertex++) {
+                int base = vertex * words;
+                for (int w = 0; w < words; w++) {
+                    long bits = next[base + w] & ~seen[base + w];
+                    next[base + w] = 0;
+                    frontier[base + w] = bits;
+                    if (bits == 0)
+                        continue;
+
+                    active = true;
+                    seen[base + w] |= bits;
+                    for (; bits != 0; bits &= bits - 1)
+                        table[(w << 6) + Long.numberOfTrailingZeros(bits)][vertex] = depth;
+                }
+            }
+        }
+
+        this.graph = compact;
+        this.sources = list;
+        this.sourceIndex = index;
+        this.depths = table;
+        return this;
+    }
+
+    /**
+     * Get the sources of the last visit, without duplicates.<br>
+     * The i-th source is the one of the i-th row of {@link #getDepthTable()}.
+     *
+     * @return the sources or null if the visit is not already been done
+     */
+    public List<V> getSources() {
+        return sources == null ? null : List.copyOf(sources);
+    }
+
+    /**
+     * Get the vertex with the index passed in the last visit.<br>
+     * The vertices have the same order of the iterator of the graph.
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     * @throws NullPointerException if the visit is not already been done
+     */
+    public V getVertex(int index) throws NullPointerException {
+        return graph.getVertex(index);
+    }
+
+    /**
+     * Get the depths found in the last visit.<br>
+     * The value in [i][j] is the depth of the vertex {@link #getVertex(int) getVertex(j)} in the visit starting from the i-th source,
+     * or {@link #NOT_REACHED} if the vertex is not reachable from it.<br>
+     * The table is not copied, so any change will be seen by the other methods.
+     *
+     * @return the depth table or null if the visit is not already been done
+     */
+    public int[][] getDepthTable() {
+        return depths;
+    }
+
+    /**
+     * Get the depth of a vertex in the visit starting from the source passed.
+     *
+     * @param source the source of the visit
+     * @param vertex the vertex
+     * @return the depth of the vertex or {@link #NOT_REACHED} if it can't be reached from the source
+     * @throws NullPointerException     if one of the parameters is null or the visit is not already been done
+     * @throws IllegalArgumentException if the source is not one of the visit or the vertex is not in the graph
+     */
+    public int getDepth(V source, V vertex) throws NullPointerException, IllegalArgumentException {
+        if (source == null || vertex == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+
+        Integer row = sourceIndex.get(source);
+        Integer column = graph.indexOf(vertex);
+        if (row == null || column == null)
+            throw new IllegalArgumentException(Graph.VERTEX_NOT_CONTAINED);
+        return depths[row][column];
+    }
+}
@@ -0,0 +1,228 @@
+package net.berack.upo.graph.visit;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import net.berack.upo.Graph;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitStrategy;
+import net.berack.upo.graph.visit.struct.CompactGraph;
+
+/**
+ * Level-synchronous parallel breadth-first search<br>
+ * The graph is copied in a {@link CompactGraph}, reading the children of the vertices in parallel,
+ * unless a copy built before is passed with {@link #setCompactGraph(CompactGraph)}; then every level of the visit is split in fork/join tasks:
+ * each task scans the children of a slice of the frontier, claims the undiscovered ones with a CAS on a shared bitmap
+ * and puts them in its own buffer, and the buffers are joined in the next frontier.<br>
+ * Once a level is complete the new vertices are reported, in the order of the frontier, to a {@link CompactVisitInfo}
+ * and to the visit function by the calling thread, so the visit function doesn't need to be thread-safe.
+ * The depth of every vertex is the one of {@link BFS}, while the parent could be any of the vertices of the previous level
+ * that has an edge to it.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class ParallelBFS<V> implements VisitStrategy<V> {
+    /**
+     * Number of frontier vertices under which a task doesn't split anymore
+     */
+    public static final int THRESHOLD = 256;
+
+    private int maxDepth = -1;
+    private boolean trackInfo = true;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private VisitBudget budget = null;
+    private CompactGraph<V> compact = null;
+
+    /**
+     * Set the maximum depth of the visit.<br>
+     * The vertices farther than the depth passed from the source are not discovered.
+     *
+     * @param depth the maximum depth, or a negative number for no limits
+     * @return this instance
+     */
+    public ParallelBFS<V> setMaxDepth(int depth) {
+        this.maxDepth = depth;
+        return this;
+    }
+
+    /**
+     * Set the pool where the tasks of every level are executed.<br>
+     * By default it is the {@link ForkJoinPool#commonPool()}.
+     *
+     * @param pool the pool to use
+     * @return this instance
+     * @throws NullPointerException if the pool is null
+     */
+    public ParallelBFS<V> setPool(ForkJoinPool pool) throws NullPointerException {
+        if (pool == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Choose if the visit has to fill a {@link CompactVisitInfo}.<br>
+     * If not, only the discovered bitmap and the frontier are kept, and the visit returns null.
+     *
+     * @param track true (the default) for having the info of the visit
+     * @return this instance
+     */
+    public ParallelBFS<V> setTrackInfo(boolean track) {
+        this.trackInfo = track;
+        return this;
+    }
+
+    /**
+     * Set the budget of the visit.<br>
+     * The vertices of a level and their edges are asked all together before expanding it;
+     * when the budget runs out the visit stops and the info returned, if any, is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public ParallelBFS<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Set the copy of the graph that the visits have to use, so that many visits of the same graph copy it only once.<br>
+     * The copy must be of the graph passed to the visits, and it doesn't see the changes made to the graph after it was built.
+     * If null (the default) every visit builds its own copy.
+     *
+     * @param compact the copy of the graph or null
+     * @return this instance
+     */
+    public ParallelBFS<V> setCompactGraph(CompactGraph<V> compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, IllegalArgumentException {
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, IllegalArgumentException {
+        if (source == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+
+        CompactGraph<V> compact = this.compact != null ? this.compact : new CompactGraph<>(graph, true);
+        Integer start = compact.indexOf(source);
+        if (start == null)
+            throw new IllegalArgumentException(Graph.VERTEX_NOT_CONTAINED);
+
+        int size = compact.size();
+        AtomicLongArray discovered = new AtomicLongArray((size + 63) >>> 6);
+        int[] parent = new int[size];
+
+        CompactVisitInfo<V> info = trackInfo ? new CompactVisitInfo<>(source, observer) : null;
+        if (info != null)
+            info.setVisited(source);
+        if (visit != null)
+            visit.accept(source);
+
+        claim(discovered, start);
+        int[] frontier = { start };
+        for (int depth = 0; frontier.length > 0 && (maxDepth < 0 || depth < maxDepth); depth++) {
+            if (budget != null) {
+                long edges = 0;
+                for (int vertex : frontier)
+                    edges += compact.degreeOut(vertex);
+                if (!budget.consumeVertices(frontier.length) || !budget.consumeEdges(edges))
+                    return VisitInfo.incomplete(info);
+            }
+
+            frontier = pool.invoke(new Level(compact, discovered, parent, frontier, 0, frontier.length));
+
+            for (int vertex : frontier) {
+                V current = compact.getVertex(vertex);
+                if (info != null) {
+                    info.setParent(compact.getVertex(parent[vertex]), current);
+                    info.setVisited(current);
+                }
+                if (visit != null)
+                    visit.accept(current);
+            }
+        }
+        return info;
+    }
+
+    /**
+     * Set the bit of the vertex if it was not set.
+     *
+     * @return true if this call changed the bit
+     */
+    private static boolean claim(AtomicLongArray bitmap, int vertex) {
+        int word = vertex >>> 6;
+        long mask = 1L << vertex;
+        long old = bitmap.get(word);
+        while ((old & mask) == 0) {
+            long witness = bitmap.compareAndExchange(word, old, old | mask);
+            if (witness == old)
+                return true;
+            old = witness;
+        }
+        return false;
+    }
+
+    /**
+     * Task that expands a slice of the frontier and returns the vertices claimed.
+     */
+    private static class Level extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient CompactGraph<?> graph;
+        private final AtomicLongArray discovered;
+        private final int[] parent;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+
+        private Level(CompactGraph<?> graph, AtomicLongArray discovered, int[] parent, int[] frontier, int from, int to) {
+            this.graph = graph;
+            this.discovered = discovered;
+            this.parent = parent;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                Level left = new Level(graph, discovered, parent, frontier, from, middle);
+                Level right = new Level(graph, discovered, parent, frontier, middle, to);
+                left.fork();
+                int[] second = right.compute();
+                int[] first = left.join();
+
+                int[] joined = Arrays.copyOf(first, first.length + second.length);
+                System.arraycopy(second, 0, joined, first.length, second.length);
+                return joined;
+            }
+
+            int[] buffer = new int[16];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int current = frontier[i];
+                for (int pos = graph.childrenStart(current); pos < graph.childrenEnd(current); pos++) {
+                    int child = graph.child(pos);
+                    if (claim(discovered, child)) {
+                        parent[child] = current;
+                        if (count == buffer.length)
+                            buffer = Arrays.copyOf(buffer, count << 1);
+                        buffer[count++] = child;
+                    }
+                }
+            }
+            return Arrays.copyOf(buffer, count);
+        }
+    }
+}
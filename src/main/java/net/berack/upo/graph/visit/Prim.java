@@ -1,62 +1,146 @@
 package net.berack.upo.graph.visit;
 
-import java.util.Set;
+import java.util.*;
 import java.util.function.Consumer;
 
 import net.berack.upo.Graph;
 import net.berack.upo.GraphUndirected;
 import net.berack.upo.graph.Edge;
+import net.berack.upo.graph.VisitBudget;
 import net.berack.upo.graph.VisitMST;
+import net.berack.upo.graph.visit.struct.EdgeList;
+import net.berack.upo.graph.visit.struct.IndexedHeap;
 
 /**
  * Class that implement the algorithm discovered by Prim for the minimum spanning forest
- * for a given {@link GraphUndirected}
+ * for a given {@link GraphUndirected}<br>
+ * The vertices that are not yet in the forest are kept in an {@link IndexedHeap} keyed by the
+ * lightest edge that reach them, so the cost is O(E log(V)).<br>
+ * The edges are compared with {@link EdgeList#key(int)}, so the ties between the weights are broken by the order
+ * of {@link Graph#edges()} and the forest has the same edges of the one of {@link Kruskal}.<br>
+ * When a tree cannot grow anymore the visit restart from the next vertex not in the forest,
+ * this way every component is covered.
  *
  * @param <V> The vertex of the graph
  */
 public class Prim<V> implements VisitMST<V> {
 
     private Set<Edge<V>> mst;
+    private VisitBudget budget = null;
 
     @Override
     public Set<Edge<V>> getMST() {
         return mst;
     }
 
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops, the forest has only the edges chosen so far
+     * and the info returned is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public Prim<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * The source is the vertex where the first tree starts from.<br>
+     * If it is null then the visit starts from the first vertex of the graph.
+     *
+     * @param graph  the graph to visit
+     * @param source the vertex where the first tree starts or null
+     * @param visit  the function to apply at each vertex when they are added to the forest
+     * @return the info of the visit, or null if the graph is empty
+     * @throws NullPointerException     if the graph is null
+     * @throws IllegalArgumentException if the source is not contained in the graph
+     */
     @Override
     public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, UnsupportedOperationException {
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, UnsupportedOperationException {
         mst = Graph.getDefaultSet();
-        Set<V> vertices = graph.vertices();
-
-        if (source == null)
-            source = vertices.iterator().next();
-        VisitInfo<V> info = new VisitInfo<>(source);
-        V current = source;
-
-        do {
-            if (current == null)
-                current = vertices.iterator().next();
-
-            Edge<V> min = null;
-            for (Edge<V> edge : graph.edgesOf(current))
-                if (vertices.contains(edge.getDestination()))
-                    min = (min == null || edge.getWeight() < min.getWeight() ? edge : min);
-
-            info.setParent(source, current);
-            info.setVisited(current);
-            if (visit != null)
-                visit.accept(current);
-
-            if (min == null)
-                current = null;
-            else {
-                vertices.remove(current);
-                source = min.getSource();
-                current = min.getDestination();
-                mst.add(min);
+        if (graph.size() == 0)
+            return null;
+
+        EdgeList<V> edges = new EdgeList<>(graph);
+        int size = edges.numberOfVertices();
+        int start = 0;
+        if (source != null) {
+            Integer index = edges.indexOf(source);
+            if (index == null)
+                throw new IllegalArgumentException(Graph.VERTEX_NOT_CONTAINED);
+            start = index;
+        }
+
+        int[] offsets = new int[size + 1];
+        for (int edge = 0; edge < edges.size(); edge++)
+            if (edges.source(edge) != edges.destination(edge)) {
+                offsets[edges.source(edge) + 1]++;
+                offsets[edges.destination(edge) + 1]++;
+            }
+        for (int i = 0; i < size; i++)
+            offsets[i + 1] += offsets[i];
+
+        int[] incident = new int[offsets[size]];
+        int[] next = Arrays.copyOf(offsets, size);
+        for (int edge = 0; edge < edges.size(); edge++)
+            if (edges.source(edge) != edges.destination(edge)) {
+                incident[next[edges.source(edge)]++] = edge;
+                incident[next[edges.destination(edge)]++] = edge;
             }
-        } while (vertices.size() != 0);
 
+        VisitInfo<V> info = new VisitInfo<>(edges.getVertex(start), observer);
+        IndexedHeap heap = new IndexedHeap(size);
+        boolean[] inForest = new boolean[size];
+        int[] parent = new int[size];
+
+        for (int i = -1; i < size; i++) {
+            int root = i == -1 ? start : i;
+            if (inForest[root])
+                continue;
+
+            parent[root] = -1;
+            heap.offer(root, Long.MIN_VALUE);
+            while (!heap.isEmpty()) {
+                if (budget != null && !budget.consumeVertex())
+                    return VisitInfo.incomplete(info);
+
+                int current = heap.poll();
+                V vertex = edges.getVertex(current);
+                inForest[current] = true;
+
+                if (parent[current] == -1)
+                    info.setDiscovered(vertex);
+                else {
+                    int edge = parent[current];
+                    info.setParent(edges.getVertex(other(edges, edge, current)), vertex);
+                    mst.add(edges.getEdge(edge));
+                }
+                info.setVisited(vertex);
+                if (visit != null)
+                    visit.accept(vertex);
+
+                for (int j = offsets[current]; j < offsets[current + 1]; j++) {
+                    if (budget != null && !budget.consumeEdge())
+                        return VisitInfo.incomplete(info);
+
+                    int edge = incident[j];
+                    int child = other(edges, edge, current);
+                    if (!inForest[child] && heap.offer(child, edges.key(edge)))
+                        parent[child] = edge;
+                }
+            }
+        }
         return info;
     }
+
+    private static int other(EdgeList<?> edges, int edge, int vertex) {
+        return edges.source(edge) == vertex ? edges.destination(edge) : edges.source(edge);
+    }
 }
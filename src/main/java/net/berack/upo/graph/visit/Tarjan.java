@@ -4,6 +4,7 @@ import java.util.*;
 import java.util.function.Consumer;
 
 import net.berack.upo.Graph;
+import net.berack.upo.graph.VisitBudget;
 import net.berack.upo.graph.VisitSCC;
 import net.berack.upo.graph.VisitTopological;
 
@@ -22,6 +23,8 @@ public class Tarjan<V> implements VisitSCC<V>, VisitTopological<V> {
     private Map<V, Integer> lowLink = null;
     private Stack<V> stack = null;
     private VisitInfo<V> info = null;
+    private VisitBudget budget = null;
+    private boolean stopped = false;
 
     @Override
     public Set<Set<V>> getSCC() {
@@ -33,6 +36,19 @@ public class Tarjan<V> implements VisitSCC<V>, VisitTopological<V> {
         return topologicalSort;
     }
 
+    /**
+     * Set the budget of the visit.<br>
+     * When it runs out the visit stops: the SCC are only the ones already closed, there is no topological sort
+     * and the info returned is flagged as not complete.
+     *
+     * @param budget the budget or null for no limits
+     * @return this instance
+     */
+    public Tarjan<V> setBudget(VisitBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
     /**
      * This particular visit strategy use only the graph and the visit, so the source param is not needed.
      *
@@ -44,6 +60,11 @@ public class Tarjan<V> implements VisitSCC<V>, VisitTopological<V> {
      */
     @Override
     public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit) throws NullPointerException, IllegalArgumentException {
+        return visit(graph, source, visit, null);
+    }
+
+    @Override
+    public VisitInfo<V> visit(Graph<V> graph, V source, Consumer<V> visit, Consumer<? super VisitEvent<V>> observer) throws NullPointerException, IllegalArgumentException {
         SCC = Graph.getDefaultSet();
         topologicalSort = new ArrayList<>(graph.size());
         info = null;
@@ -51,20 +72,28 @@ public class Tarjan<V> implements VisitSCC<V>, VisitTopological<V> {
         indices = Graph.getDefaultMap();
         lowLink = Graph.getDefaultMap();
         stack = new Stack<>();
+        stopped = false;
         int index = 0;
 
         for (V vertex : graph) {
+            if (stopped)
+                break;
             if (info == null)
-                info = new VisitInfo<>(vertex);
+                info = new VisitInfo<>(vertex, observer);
             if (!indices.containsKey(vertex))
                 strongConnect(graph, vertex, index, visit);
         }
 
-        topologicalSort = (graph.size() == SCC.size()) ? topologicalSort : null;
-        return info;
+        topologicalSort = (!stopped && graph.size() == SCC.size()) ? topologicalSort : null;
+        return stopped ? VisitInfo.incomplete(info) : info;
     }
 
     private void strongConnect(Graph<V> graph, V vertex, Integer index, Consumer<V> visit) {
+        if (budget != null && !budget.consumeVertex()) {
+            stopped = true;
+            return;
+        }
+
         // Set the depth index for v to the smallest unused index
         indices.put(vertex, index);
         lowLink.put(vertex, index);
@@ -74,9 +103,16 @@ public class Tarjan<V> implements VisitSCC<V>, VisitTopological<V> {
 
         // Consider successors of v
         for (V child : graph.getChildren(vertex)) {
+            if (budget != null && !budget.consumeEdge())
+                stopped = true;
+            if (stopped)
+                return;
+
             if (!indices.containsKey(child)) {
                 info.setParent(vertex, child);
                 strongConnect(graph, child, index, visit);
+                if (stopped)
+                    return;
                 lowLink.put(vertex, Math.min(lowLink.get(vertex), lowLink.get(child)));
             } else if (stack.contains(child)) {
                 // Successor w is in stack S and hence in the current SCC
@@ -0,0 +1,93 @@
+package net.berack.upo.graph.visit;
+
+/**
+ * An event that happened during a visit, as it is sent by a {@link VisitPublisher}.
+ *
+ * @param <V> the vertex of the visit
+ * @author Berack96
+ */
+public class VisitEvent<V> {
+
+    /**
+     * The kind of the events
+     */
+    public enum Type {
+        /**
+         * A vertex is found for the first time; the value is the time of discovery
+         */
+        DISCOVER,
+        /**
+         * A vertex is visited; the value is the time of visit
+         */
+        VISIT,
+        /**
+         * A better distance is found for a vertex; the value is the new distance
+         */
+        RELAX
+    }
+
+    /**
+     * The kind of this event
+     */
+    private final Type type;
+    /**
+     * The vertex of this event
+     */
+    private final V vertex;
+    /**
+     * The vertex from where this one has been reached
+     */
+    private final V parent;
+    /**
+     * Time or distance, depending on the type
+     */
+    private final long value;
+
+    /**
+     * Create a final version of this object
+     *
+     * @param type   the kind of event
+     * @param vertex the vertex of the event
+     * @param parent the vertex from where the vertex has been reached, or null if not known
+     * @param value  the time or the distance, depending on the type
+     */
+    public VisitEvent(Type type, V vertex, V parent, long value) {
+        this.type = type;
+        this.vertex = vertex;
+        this.parent = parent;
+        this.value = value;
+    }
+
+    /**
+     * @return the kind of this event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the vertex of this event
+     */
+    public V getVertex() {
+        return vertex;
+    }
+
+    /**
+     * @return the vertex from where this one has been reached, or null if not known
+     */
+    public V getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the time of the event for {@link Type#DISCOVER} and {@link Type#VISIT}, the new distance for {@link Type#RELAX}
+     */
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s -> %s (%d)", type, parent, vertex, value);
+    }
+}
@@ -13,11 +13,14 @@ import net.berack.upo.graph.VisitStrategy;
  * @author Berack96
  */
 public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
-    private static final int NOT_SET = -1;
+    static final int NOT_SET = -1;
+
+    private final Consumer<? super VisitEvent<V>> observer;
 
     private final Map<V, VertexInfo> vertices;
     private final V source;
     private long time;
+    private boolean complete = true;
 
     /**
      * Need a source for initialize the basic values
@@ -26,13 +29,43 @@ public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
      * @throws NullPointerException if the source is null
      */
     public VisitInfo(V source) {
+        this(source, null);
+    }
+
+    /**
+     * Create the info of a visit that sends an event to the observer every time it changes.<br>
+     * The events are sent from the thread that changes the info, and never while holding its lock.
+     *
+     * @param source   the source of the visit
+     * @param observer the function that receives the events, or null
+     * @throws NullPointerException if the source is null
+     */
+    public VisitInfo(V source, Consumer<? super VisitEvent<V>> observer) {
+        this(source, true, observer);
+    }
+
+    /**
+     * Constructor for the subclasses that keep the info of the vertices in another way.<br>
+     * If the map is not used, the subclass must override all the methods that use the vertices,
+     * and it must discover the source without sending the event, since it is sent here.
+     *
+     * @param source   the source of the visit
+     * @param mapped   if the info of the vertices are kept in the map of this class
+     * @param observer the function that receives the events, or null
+     * @throws NullPointerException if the source is null
+     */
+    VisitInfo(V source, boolean mapped, Consumer<? super VisitEvent<V>> observer) {
         if (source == null)
             throw new NullPointerException();
 
-        this.vertices = new Hashtable<>();
+        this.observer = observer;
+        this.vertices = mapped ? new Hashtable<>() : null;
         this.time = 0;
         this.source = source;
-        setDiscovered(source);
+        if (mapped)
+            setDiscovered(source);
+        else
+            emit(VisitEvent.Type.DISCOVER, source, null, 0);
     }
 
     /**
@@ -44,6 +77,36 @@ public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
         return source;
     }
 
+    /**
+     * Tells if the visit has gone through all the graph it had to.<br>
+     * A visit is not complete when it is stopped early, for example because its {@link net.berack.upo.graph.VisitBudget} ran out,
+     * and in that case this info contains only the part of the visit done so far.
+     *
+     * @return true if the visit is complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Flag the visit as not complete.
+     */
+    void setIncomplete() {
+        this.complete = false;
+    }
+
+    /**
+     * Flag the info passed as not complete, if there is one.
+     *
+     * @param info the info of the visit, or null
+     * @return the same info
+     */
+    static <V> VisitInfo<V> incomplete(VisitInfo<V> info) {
+        if (info != null)
+            info.setIncomplete();
+        return info;
+    }
+
     /**
      * Get the parent of a particular vertex.<br>
      * The parent of a vertex is the one that has discovered it<br>
@@ -150,14 +213,20 @@ public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
      *
      * @param vertex the vertex that has been visited
      */
-    synchronized void setVisited(V vertex) {
-        setDiscovered(vertex);
-        VertexInfo info = vertices.get(vertex);
-        if(info.timeVisited != NOT_SET)
-        	return;
-        
-        info.timeVisited = time;
-        time++;
+    void setVisited(V vertex) {
+        long discovered;
+        long visited = NOT_SET;
+        synchronized (this) {
+            discovered = discover(vertex);
+            VertexInfo info = vertices.get(vertex);
+            if (info.timeVisited == NOT_SET)
+                visited = info.timeVisited = time++;
+        }
+
+        if (discovered != NOT_SET)
+            emit(VisitEvent.Type.DISCOVER, vertex, null, discovered);
+        if (visited != NOT_SET)
+            emit(VisitEvent.Type.VISIT, vertex, null, visited);
     }
 
     /**
@@ -166,14 +235,28 @@ public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
      *
      * @param vertex the vertex that has been discovered
      */
-    synchronized void setDiscovered(V vertex) {
+    void setDiscovered(V vertex) {
+        long discovered;
+        synchronized (this) {
+            discovered = discover(vertex);
+        }
+        if (discovered != NOT_SET)
+            emit(VisitEvent.Type.DISCOVER, vertex, null, discovered);
+    }
+
+    /**
+     * Set a vertex as "discovered", without sending the event.
+     *
+     * @return the time of discovery, or {@link #NOT_SET} if it was already discovered
+     */
+    private long discover(V vertex) {
 		VertexInfo info = vertices.computeIfAbsent(vertex, _ -> new VertexInfo(vertex));
     	if(info.timeDiscovered != NOT_SET)
-        	return;
+        	return NOT_SET;
         
         info.timeDiscovered = time;
         info.depth = 0;
-        time++;
+        return time++;
     }
 
     /**
@@ -185,14 +268,48 @@ public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
      * @param child  the vertex discovered
      * @throws IllegalArgumentException if the parent is not already discovered
      */
-    synchronized void setParent(V parent, V child) throws IllegalArgumentException {
-        if (!isDiscovered(parent))
-            throw new IllegalArgumentException(parent.toString());
-
-        setDiscovered(child);
-        VertexInfo info = vertices.get(child);
-		info.parent = parent;
-		info.depth = vertices.get(parent).depth + 1;
+    void setParent(V parent, V child) throws IllegalArgumentException {
+        long discovered;
+        synchronized (this) {
+            if (!isDiscovered(parent))
+                throw new IllegalArgumentException(parent.toString());
+
+            discovered = discover(child);
+            VertexInfo info = vertices.get(child);
+            info.parent = parent;
+            info.depth = vertices.get(parent).depth + 1;
+        }
+        if (discovered != NOT_SET)
+            emit(VisitEvent.Type.DISCOVER, child, parent, discovered);
+    }
+
+    /**
+     * Tells that a better distance has been found for a vertex.<br>
+     * Nothing is saved, but the event is sent to the {@link VisitPublisher} of the visit, if any.
+     *
+     * @param parent   the vertex from where the distance is found
+     * @param child    the vertex reached
+     * @param distance the new distance of the vertex
+     */
+    void setRelaxed(V parent, V child, long distance) {
+        emit(VisitEvent.Type.RELAX, child, parent, distance);
+    }
+
+    /**
+     * Tells if the events of this info are sent to someone.
+     *
+     * @return true if there is an observer
+     */
+    boolean isObserved() {
+        return observer != null;
+    }
+
+    /**
+     * Send an event to the observer of this info, if any.
+     */
+    void emit(VisitEvent.Type type, V vertex, V parent, long value) {
+        if (observer != null)
+            observer.accept(new VisitEvent<>(type, vertex, parent, value));
     }
 
     /**
@@ -289,6 +406,15 @@ public class VisitInfo<V> implements Iterable<VisitInfo<V>.VertexInfo> {
             this.compareVisited = false;
         }
         
+        VertexInfo(V vertex, V parent, long timeDiscovered, long timeVisited, long depth, boolean compare) {
+            this.vertex = vertex;
+            this.parent = parent;
+            this.timeDiscovered = timeDiscovered;
+            this.timeVisited = timeVisited;
+            this.depth = depth;
+            this.compareVisited = compare;
+        }
+
         private VertexInfo(VertexInfo info, boolean compare) {
             this.vertex = info.vertex;
             this.parent = info.parent;
@@ -0,0 +1,154 @@
+package net.berack.upo.graph.visit;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import net.berack.upo.Graph;
+import net.berack.upo.graph.VisitStrategy;
+
+/**
+ * A {@link Flow.Publisher} of the events of a visit, sent while the visit is running.<br>
+ * Every subscriber gets its own visit, run by the executor passed, that emits an event every time the
+ * {@link VisitInfo} of the strategy changes: when a vertex is discovered or visited and, for {@link Dijkstra},
+ * when the distance of a vertex is relaxed.<br>
+ * Since the strategies keep the state of their visit, every visit uses a new strategy taken from the supplier,
+ * so the subscribers never share one.<br>
+ * The visit waits when the subscriber hasn't requested more events, so a slow subscriber slows down the visit
+ * instead of filling the memory. If the subscription is cancelled the visit is stopped as soon as it tries to emit
+ * the next event.<br>
+ * The strategies that don't use a {@link VisitInfo} (or that are set for not using it) don't emit any event,
+ * and the subscriber will only receive the completion.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class VisitPublisher<V> implements Flow.Publisher<VisitEvent<V>> {
+
+    private final Graph<V> graph;
+    private final V source;
+    private final Supplier<? extends VisitStrategy<V>> strategies;
+    private final Executor executor;
+
+    /**
+     * Create a publisher that runs each visit in a new virtual thread.
+     *
+     * @param graph      the graph to visit
+     * @param source     the source of the visit
+     * @param strategies the supplier of a new strategy for every visit, like {@code BFS::new}
+     * @throws NullPointerException if the graph or the supplier are null
+     */
+    public VisitPublisher(Graph<V> graph, V source, Supplier<? extends VisitStrategy<V>> strategies) throws NullPointerException {
+        this(graph, source, strategies, runnable -> Thread.ofVirtual().start(runnable));
+    }
+
+    /**
+     * Create a publisher that runs each visit with the executor passed.<br>
+     * Since the visit waits for the requests of the subscriber, the executor should not be shared with it.
+     *
+     * @param graph      the graph to visit
+     * @param source     the source of the visit
+     * @param strategies the supplier of a new strategy for every visit, like {@code BFS::new}
+     * @param executor   the executor of the visits
+     * @throws NullPointerException if the graph, the supplier or the executor are null
+     */
+    public VisitPublisher(Graph<V> graph, V source, Supplier<? extends VisitStrategy<V>> strategies, Executor executor) throws NullPointerException {
+        if (graph == null || strategies == null || executor == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+
+        this.graph = graph;
+        this.source = source;
+        this.strategies = strategies;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super VisitEvent<V>> subscriber) throws NullPointerException {
+        if (subscriber == null)
+            throw new NullPointerException(Graph.PARAM_NULL);
+
+        VisitSubscription subscription = new VisitSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        executor.execute(subscription::run);
+    }
+
+    /**
+     * The subscription of a subscriber that is also the observer of its visit
+     */
+    private class VisitSubscription implements Flow.Subscription, Consumer<VisitEvent<V>> {
+        private final Flow.Subscriber<? super VisitEvent<V>> subscriber;
+        private long demand = 0;
+        private boolean cancelled = false;
+        private Throwable error = null;
+
+        private VisitSubscription(Flow.Subscriber<? super VisitEvent<V>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0)
+                error = new IllegalArgumentException("The request must be positive: " + n);
+            else
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        @Override
+        public void accept(VisitEvent<V> event) {
+            synchronized (this) {
+                while (demand == 0 && !cancelled && error == null)
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        cancelled = true;
+                    }
+
+                if (cancelled || error != null)
+                    throw new CancellationException();
+                demand--;
+            }
+            subscriber.onNext(event);
+        }
+
+        /**
+         * Run the visit with this as observer and then tell the subscriber how it ended
+         */
+        private void run() {
+            try {
+                VisitStrategy<V> strategy = strategies.get();
+                if (strategy == null)
+                    throw new NullPointerException(Graph.PARAM_NULL);
+                strategy.visit(graph, source, null, this);
+            } catch (CancellationException e) {
+                // the subscription is cancelled or there is an error, handled below
+            } catch (Throwable e) {
+                synchronized (this) {
+                    if (error == null)
+                        error = e;
+                }
+            }
+
+            Throwable ended;
+            synchronized (this) {
+                if (cancelled)
+                    return;
+                cancelled = true;
+                ended = error;
+            }
+            if (ended == null)
+                subscriber.onComplete();
+            else
+                subscriber.onError(ended);
+        }
+    }
+}
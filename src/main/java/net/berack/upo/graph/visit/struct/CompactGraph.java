@@ -0,0 +1,195 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import net.berack.upo.Graph;
+
+/**
+ * Compact copy of the adjacency of a graph, in the compressed sparse row format.<br>
+ * Every vertex is mapped to an index in [0, {@link #size()}) following the iteration order of the graph.
+ * The children of the vertex i are then {@link #child(int)} for every position from {@link #childrenStart(int)}
+ * (included) to {@link #childrenEnd(int)} (excluded), and the same goes for the ancestors.<br>
+ * The graph is read only once with {@link Graph#getChildren(Object)} and the ancestors are found by transposing the children,
+ * this way the visits can move on the edges in both directions without looking up the graph or creating any set.<br>
+ * The copy can be built once and shared by many visits of the same graph, as long as the graph doesn't change.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class CompactGraph<V> {
+    private final List<V> vertices;
+    private final Map<V, Integer> indices;
+    private final int[] childrenOffsets;
+    private final int[] children;
+    private final int[] ancestorsOffsets;
+    private final int[] ancestors;
+
+    /**
+     * Copy the vertices and the adjacency of the graph.
+     *
+     * @param graph the graph to copy
+     * @throws NullPointerException if the graph is null
+     */
+    public CompactGraph(Graph<V> graph) throws NullPointerException {
+        this(graph, false);
+    }
+
+    /**
+     * Copy the vertices and the adjacency of the graph, reading the children of the vertices in parallel if asked.<br>
+     * In that case the graph must be safe to read from many threads, and it must not change meanwhile.
+     *
+     * @param graph    the graph to copy
+     * @param parallel true for reading the children in parallel
+     * @throws NullPointerException if the graph is null
+     */
+    public CompactGraph(Graph<V> graph, boolean parallel) throws NullPointerException {
+        int size = graph.size();
+        this.vertices = new ArrayList<>(size);
+        this.indices = new HashMap<>(size * 2);
+        for (V vertex : graph) {
+            indices.put(vertex, vertices.size());
+            vertices.add(vertex);
+        }
+
+        int[][] adjacency = new int[size][];
+        range(size, parallel).forEach(i -> adjacency[i] = graph.getChildren(vertices.get(i)).stream().mapToInt(indices::get).toArray());
+
+        this.childrenOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++)
+            childrenOffsets[i + 1] = childrenOffsets[i] + adjacency[i].length;
+
+        int edges = childrenOffsets[size];
+        this.children = new int[edges];
+        this.ancestorsOffsets = new int[size + 1];
+        this.ancestors = new int[edges];
+
+        range(size, parallel).forEach(i -> System.arraycopy(adjacency[i], 0, children, childrenOffsets[i], adjacency[i].length));
+        for (int child : children)
+            ancestorsOffsets[child + 1]++;
+        for (int i = 0; i < size; i++)
+            ancestorsOffsets[i + 1] += ancestorsOffsets[i];
+
+        int[] next = new int[size];
+        System.arraycopy(ancestorsOffsets, 0, next, 0, size);
+        for (int i = 0; i < size; i++)
+            for (int child : adjacency[i])
+                ancestors[next[child]++] = i;
+    }
+
+    private static IntStream range(int size, boolean parallel) {
+        IntStream range = IntStream.range(0, size);
+        return parallel ? range.parallel() : range;
+    }
+
+    /**
+     * Tells how many vertices there are.
+     *
+     * @return the number of vertices
+     */
+    public int size() {
+        return vertices.size();
+    }
+
+    /**
+     * Tells how many edges there are.
+     *
+     * @return the number of edges
+     */
+    public int numberOfEdges() {
+        return children.length;
+    }
+
+    /**
+     * Get the vertex with the index passed.
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     */
+    public V getVertex(int index) {
+        return vertices.get(index);
+    }
+
+    /**
+     * Get the index of the vertex passed.
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex or null if it is not in the graph
+     */
+    public Integer indexOf(V vertex) {
+        return indices.get(vertex);
+    }
+
+    /**
+     * Get the position of the first child of a vertex.
+     *
+     * @param vertex the index of the vertex
+     * @return the first position (included)
+     */
+    public int childrenStart(int vertex) {
+        return childrenOffsets[vertex];
+    }
+
+    /**
+     * Get the position after the last child of a vertex.
+     *
+     * @param vertex the index of the vertex
+     * @return the last position (excluded)
+     */
+    public int childrenEnd(int vertex) {
+        return childrenOffsets[vertex + 1];
+    }
+
+    /**
+     * Get the child in the position passed.
+     *
+     * @param position a position between the start and the end of the children of a vertex
+     * @return the index of the child
+     */
+    public int child(int position) {
+        return children[position];
+    }
+
+    /**
+     * Get the position of the first ancestor of a vertex.
+     *
+     * @param vertex the index of the vertex
+     * @return the first position (included)
+     */
+    public int ancestorsStart(int vertex) {
+        return ancestorsOffsets[vertex];
+    }
+
+    /**
+     * Get the position after the last ancestor of a vertex.
+     *
+     * @param vertex the index of the vertex
+     * @return the last position (excluded)
+     */
+    public int ancestorsEnd(int vertex) {
+        return ancestorsOffsets[vertex + 1];
+    }
+
+    /**
+     * Get the ancestor in the position passed.
+     *
+     * @param position a position between the start and the end of the ancestors of a vertex
+     * @return the index of the ancestor
+     */
+    public int ancestor(int position) {
+        return ancestors[position];
+    }
+
+    /**
+     * Tells how many children a vertex has.
+     *
+     * @param vertex the index of the vertex
+     * @return the out degree of the vertex
+     */
+    public int degreeOut(int vertex) {
+        return childrenOffsets[vertex + 1] - childrenOffsets[vertex];
+    }
+}
@@ -0,0 +1,221 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Thread-safe version of the {@link DisjointSet} that never takes a lock.<br>
+ * The parent pointers live in {@link AtomicIntegerArray} chunks and every change is done with a CAS,
+ * in the style of Jayanti and Tarjan: roots are linked by a fixed pseudo-random priority
+ * and {@link #find(int)} compresses the paths by splitting.<br>
+ * The directory of the chunks is never modified: it is replaced with a bigger copy, doubling its length,
+ * only when a new chunk is needed, so a small structure uses only the memory of its elements.<br>
+ * {@link #makeSet()}, {@link #union(int, int)}, {@link #find(int)} and {@link #connected(int, int)}
+ * can all be called concurrently by any number of threads.
+ *
+ * @author Berack96
+ */
+public class ConcurrentDisjointSet {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final AtomicReference<AtomicIntegerArray[]> chunks = new AtomicReference<>(new AtomicIntegerArray[1]);
+    private final AtomicInteger reserved = new AtomicInteger(0);
+    private final AtomicInteger elements = new AtomicInteger(0);
+    private final AtomicInteger sets = new AtomicInteger(0);
+
+    /**
+     * Create an empty structure.
+     */
+    public ConcurrentDisjointSet() {
+        this(0);
+    }
+
+    /**
+     * Create a structure with n single element sets, one for each integer in [0, n)
+     *
+     * @param n the number of elements
+     * @throws IllegalArgumentException if n is negative
+     */
+    public ConcurrentDisjointSet(int n) throws IllegalArgumentException {
+        if (n < 0)
+            throw new IllegalArgumentException();
+        if (n > 0)
+            chunk(n - 1);
+        reserved.set(n);
+        elements.set(n);
+        sets.set(n);
+    }
+
+    /**
+     * Indicate how many different sets there are.<br>
+     * While other threads are merging the value could be already outdated when returned.
+     *
+     * @return the number of sets
+     */
+    public int size() {
+        return sets.get();
+    }
+
+    /**
+     * Indicate how many elements are in the structure.
+     *
+     * @return the number of elements
+     */
+    public int elements() {
+        return elements.get();
+    }
+
+    /**
+     * Creates a new single element set.
+     *
+     * @return the index of the new element
+     * @throws IllegalStateException if the structure cannot hold more elements
+     */
+    public int makeSet() throws IllegalStateException {
+        int element = reserved.getAndIncrement();
+        if (element < 0) {
+            reserved.decrementAndGet();
+            throw new IllegalStateException();
+        }
+
+        chunk(element);
+        elements.incrementAndGet();
+        sets.incrementAndGet();
+        return element;
+    }
+
+    /**
+     * Returns the index representing the set in which the element passed resides.<br>
+     * If other threads are merging the set, the returned root could be already outdated.
+     *
+     * @param element the index of the element
+     * @return the representing index of the set
+     * @throws IllegalArgumentException if the element is not in the structure
+     */
+    public int find(int element) throws IllegalArgumentException {
+        check(element);
+        while (true) {
+            int parent = parent(element);
+            if (parent == element)
+                return element;
+
+            int grand = parent(parent);
+            if (parent != grand)
+                chunks.get()[element >>> CHUNK_BITS].compareAndSet(element & CHUNK_MASK, parent, grand);
+            element = parent;
+        }
+    }
+
+    /**
+     * Merge the sets of the two elements.<br>
+     * In the case that the two elements are in the same set it returns false.
+     *
+     * @param element1 the index of an element
+     * @param element2 the index of another element
+     * @return true if this call merged the two sets, false otherwise
+     * @throws IllegalArgumentException if one of the elements is not in the structure
+     */
+    public boolean union(int element1, int element2) throws IllegalArgumentException {
+        while (true) {
+            int root1 = find(element1);
+            int root2 = find(element2);
+            if (root1 == root2)
+                return false;
+
+            if (priority(root1) < priority(root2)) {
+                int temp = root1;
+                root1 = root2;
+                root2 = temp;
+            }
+
+            if (chunks.get()[root2 >>> CHUNK_BITS].compareAndSet(root2 & CHUNK_MASK, root2, root1)) {
+                sets.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Tells if the two elements are in the same set.
+     *
+     * @param element1 the index of an element
+     * @param element2 the index of another element
+     * @return true if they are in the same set
+     * @throws IllegalArgumentException if one of the elements is not in the structure
+     */
+    public boolean connected(int element1, int element2) throws IllegalArgumentException {
+        while (true) {
+            int root1 = find(element1);
+            int root2 = find(element2);
+            if (root1 == root2)
+                return true;
+            if (parent(root1) == root1)
+                return false;
+        }
+    }
+
+    private int parent(int element) {
+        return chunks.get()[element >>> CHUNK_BITS].get(element & CHUNK_MASK);
+    }
+
+    /**
+     * An element is valid only if it was reserved and its chunk was already installed,
+     * so a concurrent {@link #makeSet()} that is still creating the chunk is never seen half done.
+     */
+    private void check(int element) {
+        if (element < 0 || element >= reserved.get())
+            throw new IllegalArgumentException();
+        AtomicIntegerArray[] current = chunks.get();
+        int index = element >>> CHUNK_BITS;
+        if (index >= current.length || current[index] == null)
+            throw new IllegalArgumentException();
+    }
+
+    /**
+     * Make sure that the chunk of the element, and all the ones before it, exist.<br>
+     * A new chunk has every element as root of itself, so a new set doesn't need any other write.
+     */
+    private void chunk(int element) {
+        int index = element >>> CHUNK_BITS;
+        while (true) {
+            AtomicIntegerArray[] current = chunks.get();
+            if (index < current.length && current[index] != null)
+                return;
+
+            int length = current.length;
+            while (length <= index)
+                length <<= 1;
+            AtomicIntegerArray[] next = Arrays.copyOf(current, length);
+            for (int i = 0; i <= index; i++)
+                if (next[i] == null)
+                    next[i] = newChunk(i);
+            if (chunks.compareAndSet(current, next))
+                return;
+        }
+    }
+
+    private static AtomicIntegerArray newChunk(int index) {
+        AtomicIntegerArray chunk = new AtomicIntegerArray(CHUNK_SIZE);
+        int base = index << CHUNK_BITS;
+        for (int i = 0; i < CHUNK_SIZE; i++)
+            chunk.set(i, base + i);
+        return chunk;
+    }
+
+    /**
+     * Pseudo-random order used for linking the roots.<br>
+     * It is a bijection, so two different elements never have the same priority.
+     */
+    private static int priority(int element) {
+        element ^= element >>> 16;
+        element *= 0x85ebca6b;
+        element ^= element >>> 13;
+        element *= 0xc2b2ae35;
+        element ^= element >>> 16;
+        return element;
+    }
+}
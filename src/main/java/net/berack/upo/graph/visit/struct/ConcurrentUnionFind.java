@@ -0,0 +1,103 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe implementation of the {@link UnionFind} interface.<br>
+ * The elements are mapped to the indices of a {@link ConcurrentDisjointSet}, so many threads can
+ * add elements and merge sets at the same time without any global lock,
+ * for example while the edges of a graph are streamed by different producers.
+ *
+ * @param <X> the elements to search and merge
+ * @author Berack96
+ */
+public class ConcurrentUnionFind<X> implements UnionFind<X> {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ConcurrentMap<X, Integer> indices = new ConcurrentHashMap<>();
+    private final AtomicReference<AtomicReferenceArray<Object>[]> elements = new AtomicReference<>(newDirectory(1));
+    private final ConcurrentDisjointSet sets = new ConcurrentDisjointSet();
+
+    @Override
+    public int size() {
+        return sets.size();
+    }
+
+    @Override
+    public void makeSetAll(Collection<X> elements) throws NullPointerException {
+        for (X elem : elements)
+            makeSet(elem);
+    }
+
+    @Override
+    public void makeSet(X element) throws NullPointerException {
+        if (element == null)
+            throw new NullPointerException();
+        indices.computeIfAbsent(element, elem -> {
+            int index = sets.makeSet();
+            chunk(index).set(index & CHUNK_MASK, elem);
+            return index;
+        });
+    }
+
+    @Override
+    public boolean union(X element1, X element2) throws NullPointerException, IllegalArgumentException {
+        if (element1 == null || element2 == null)
+            throw new NullPointerException();
+
+        Integer index1 = indices.get(element1);
+        Integer index2 = indices.get(element2);
+        if (index1 == null || index2 == null)
+            throw new IllegalArgumentException();
+        return sets.union(index1, index2);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public X find(X element) throws NullPointerException {
+        if (element == null)
+            throw new NullPointerException();
+
+        Integer index = indices.get(element);
+        if (index == null)
+            return null;
+
+        int root = sets.find(index);
+        return (X) elements.get()[root >>> CHUNK_BITS].get(root & CHUNK_MASK);
+    }
+
+    /**
+     * Get the chunk of the index, creating it if needed.<br>
+     * The directory is never modified, but replaced with a copy of double length, as in the {@link ConcurrentDisjointSet}.
+     */
+    private AtomicReferenceArray<Object> chunk(int index) {
+        int chunk = index >>> CHUNK_BITS;
+        while (true) {
+            AtomicReferenceArray<Object>[] current = elements.get();
+            if (chunk < current.length && current[chunk] != null)
+                return current[chunk];
+
+            int length = current.length;
+            while (length <= chunk)
+                length <<= 1;
+            AtomicReferenceArray<Object>[] next = Arrays.copyOf(current, length);
+            for (int i = 0; i <= chunk; i++)
+                if (next[i] == null)
+                    next[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            if (elements.compareAndSet(current, next))
+                return next[chunk];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Object>[] newDirectory(int length) {
+        return (AtomicReferenceArray<Object>[]) new AtomicReferenceArray<?>[length];
+    }
+}
@@ -0,0 +1,138 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint-set forest over the integers from 0 to {@link #elements()} - 1.<br>
+ * It uses union by rank and path halving, so every operation costs O(α(n)) amortized.<br>
+ * This is the array based engine behind {@link QuickUnion}, but it can be used directly
+ * by the algorithms that already map the vertices to indices.
+ *
+ * @author Berack96
+ */
+public class DisjointSet {
+    private int[] parent;
+    private byte[] rank;
+    private int elements;
+    private int sets;
+
+    /**
+     * Create an empty structure.
+     */
+    public DisjointSet() {
+        this(0);
+    }
+
+    /**
+     * Create a structure with n single element sets, one for each integer in [0, n)
+     *
+     * @param n the number of elements
+     * @throws IllegalArgumentException if n is negative
+     */
+    public DisjointSet(int n) throws IllegalArgumentException {
+        if (n < 0)
+            throw new IllegalArgumentException();
+
+        this.parent = new int[Math.max(n, 8)];
+        this.rank = new byte[parent.length];
+        for (int i = 0; i < n; i++)
+            parent[i] = i;
+        this.elements = n;
+        this.sets = n;
+    }
+
+    /**
+     * Indicate how many different sets there are.
+     *
+     * @return the number of sets
+     */
+    public int size() {
+        return sets;
+    }
+
+    /**
+     * Indicate how many elements are in the structure.
+     *
+     * @return the number of elements
+     */
+    public int elements() {
+        return elements;
+    }
+
+    /**
+     * Creates a new single element set.
+     *
+     * @return the index of the new element
+     */
+    public int makeSet() {
+        if (elements == parent.length) {
+            parent = Arrays.copyOf(parent, parent.length * 2);
+            rank = Arrays.copyOf(rank, parent.length);
+        }
+
+        parent[elements] = elements;
+        sets++;
+        return elements++;
+    }
+
+    /**
+     * Returns the index representing the set in which the element passed resides.
+     *
+     * @param element the index of the element
+     * @return the representing index of the set
+     * @throws IllegalArgumentException if the element is not in the structure
+     */
+    public int find(int element) throws IllegalArgumentException {
+        check(element);
+        while (parent[element] != element) {
+            parent[element] = parent[parent[element]];
+            element = parent[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merge the sets of the two elements.<br>
+     * In the case that the two elements are in the same set it returns false.
+     *
+     * @param element1 the index of an element
+     * @param element2 the index of another element
+     * @return true in the case of a successful merge, false otherwise
+     * @throws IllegalArgumentException if one of the elements is not in the structure
+     */
+    public boolean union(int element1, int element2) throws IllegalArgumentException {
+        int root1 = find(element1);
+        int root2 = find(element2);
+        if (root1 == root2)
+            return false;
+
+        if (rank[root1] < rank[root2]) {
+            int temp = root1;
+            root1 = root2;
+            root2 = temp;
+        }
+
+        parent[root2] = root1;
+        if (rank[root1] == rank[root2])
+            rank[root1]++;
+        sets--;
+        return true;
+    }
+
+    /**
+     * Tells if the two elements are in the same set.
+     *
+     * @param element1 the index of an element
+     * @param element2 the index of another element
+     * @return true if they are in the same set
+     * @throws IllegalArgumentException if one of the elements is not in the structure
+     */
+    public boolean connected(int element1, int element2) throws IllegalArgumentException {
+        return find(element1) == find(element2);
+    }
+
+    private void check(int element) {
+        if (element < 0 || element >= elements)
+            throw new IllegalArgumentException();
+    }
+}
@@ -0,0 +1,157 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.berack.upo.Graph;
+import net.berack.upo.graph.Edge;
+
+/**
+ * Compact copy of the edges of a graph.<br>
+ * Every vertex is mapped to an index in [0, {@link #numberOfVertices()}) following the iteration order of the graph,
+ * and every edge to an index in [0, {@link #size()}) following the order of {@link Graph#edges()}.<br>
+ * The endpoints and the weights are then kept in primitive arrays, so that the algorithms can work on
+ * them without looking up the graph or boxing anything.
+ *
+ * @param <V> the vertex of the graph
+ * @author Berack96
+ */
+public class EdgeList<V> {
+    private final List<V> vertices;
+    private final Map<V, Integer> indices;
+    private final List<Edge<V>> edges;
+    private final int[] sources;
+    private final int[] destinations;
+    private final int[] weights;
+
+    /**
+     * Copy the vertices and the edges of the graph.
+     *
+     * @param graph the graph to copy
+     * @throws NullPointerException if the graph is null
+     */
+    public EdgeList(Graph<V> graph) throws NullPointerException {
+        this.vertices = new ArrayList<>(graph.size());
+        this.indices = new HashMap<>(graph.size() * 2);
+        for (V vertex : graph) {
+            indices.put(vertex, vertices.size());
+            vertices.add(vertex);
+        }
+
+        Set<Edge<V>> all = graph.edges();
+        this.edges = new ArrayList<>(all);
+        this.sources = new int[edges.size()];
+        this.destinations = new int[edges.size()];
+        this.weights = new int[edges.size()];
+
+        for (int i = 0; i < edges.size(); i++) {
+            Edge<V> edge = edges.get(i);
+            sources[i] = indices.get(edge.getSource());
+            destinations[i] = indices.get(edge.getDestination());
+            weights[i] = edge.getWeight();
+        }
+    }
+
+    /**
+     * Tells how many edges there are.
+     *
+     * @return the number of edges
+     */
+    public int size() {
+        return edges.size();
+    }
+
+    /**
+     * Tells how many vertices there are.
+     *
+     * @return the number of vertices
+     */
+    public int numberOfVertices() {
+        return vertices.size();
+    }
+
+    /**
+     * Get the vertex with the index passed.
+     *
+     * @param index the index of the vertex
+     * @return the vertex
+     */
+    public V getVertex(int index) {
+        return vertices.get(index);
+    }
+
+    /**
+     * Get the index of the vertex passed.
+     *
+     * @param vertex the vertex
+     * @return the index of the vertex or null if it is not in the graph
+     */
+    public Integer indexOf(V vertex) {
+        return indices.get(vertex);
+    }
+
+    /**
+     * Get the original edge with the index passed.
+     *
+     * @param edge the index of the edge
+     * @return the edge
+     */
+    public Edge<V> getEdge(int edge) {
+        return edges.get(edge);
+    }
+
+    /**
+     * Get the index of the source of an edge.
+     *
+     * @param edge the index of the edge
+     * @return the index of the source vertex
+     */
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Get the index of the destination of an edge.
+     *
+     * @param edge the index of the edge
+     * @return the index of the destination vertex
+     */
+    public int destination(int edge) {
+        return destinations[edge];
+    }
+
+    /**
+     * Get the weight of an edge.
+     *
+     * @param edge the index of the edge
+     * @return the weight
+     */
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Get a key that orders the edges by weight and then by index.<br>
+     * Since the index is unique, two edges never have the same key,
+     * and the ties between the weights are broken by the order of {@link Graph#edges()}.
+     *
+     * @param edge the index of the edge
+     * @return the key of the edge
+     */
+    public long key(int edge) {
+        return ((long) weights[edge] << 32) | edge;
+    }
+
+    /**
+     * Get the index of the edge from its key.
+     *
+     * @param key the key returned by {@link #key(int)}
+     * @return the index of the edge
+     */
+    public static int edgeOf(long key) {
+        return (int) key;
+    }
+}
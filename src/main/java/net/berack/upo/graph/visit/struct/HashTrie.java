@@ -0,0 +1,343 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * An immutable map implemented as a hash array mapped trie.<br>
+ * Every level of the trie uses 5 bits of the hash of the key, and keeps only the children that exist,
+ * found with a bitmap. {@link #with(Object, Object)} and {@link #without(Object)} don't modify the map,
+ * but return a new one that shares all the trie with the old one, except the O(log32(n)) nodes
+ * on the path of the changed key.<br>
+ * Null keys and values are not allowed.
+ *
+ * @param <K> the keys
+ * @param <T> the values
+ * @author Berack96
+ */
+public final class HashTrie<K, T> implements Iterable<Map.Entry<K, T>> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final HashTrie<?, ?> EMPTY = new HashTrie<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Get the empty map
+     *
+     * @param <K> the keys
+     * @param <T> the values
+     * @return a map without elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, T> HashTrie<K, T> empty() {
+        return (HashTrie<K, T>) EMPTY;
+    }
+
+    /**
+     * Tells how many keys are in the map
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells if the map has no keys
+     *
+     * @return true if the map is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the value associated to the key
+     *
+     * @param key the key
+     * @return the value, or null if the key is not in the map
+     * @throws NullPointerException if the key is null
+     */
+    public T get(Object key) throws NullPointerException {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Get the value associated to the key, or the default one if the key is not in the map
+     *
+     * @param key          the key
+     * @param defaultValue the value returned if the key is missing
+     * @return the value of the key or the default one
+     * @throws NullPointerException if the key is null
+     */
+    @SuppressWarnings("unchecked")
+    public T getOrDefault(Object key, T defaultValue) throws NullPointerException {
+        Leaf leaf = find(key);
+        return leaf == null ? defaultValue : (T) leaf.getValue();
+    }
+
+    /**
+     * Tells if the key is in the map
+     *
+     * @param key the key
+     * @return true if the key has a value
+     * @throws NullPointerException if the key is null
+     */
+    public boolean containsKey(Object key) throws NullPointerException {
+        return find(key) != null;
+    }
+
+    /**
+     * Get a map with the same elements of this one, but with the key associated to the value.<br>
+     * If the key has already that value then this map is returned.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return a new map with the key
+     * @throws NullPointerException if the key or the value are null
+     */
+    public HashTrie<K, T> with(K key, T value) throws NullPointerException {
+        Objects.requireNonNull(value);
+        Leaf old = find(key);
+        if (old != null && old.getValue() == value)
+            return this;
+
+        Node newRoot = with(root, new Leaf(hash(key), key, value), 0);
+        return new HashTrie<>(newRoot, old == null ? size + 1 : size);
+    }
+
+    /**
+     * Get a map with the same elements of this one, but without the key.<br>
+     * If the key is not in the map then this map is returned.
+     *
+     * @param key the key to remove
+     * @return a new map without the key
+     * @throws NullPointerException if the key is null
+     */
+    public HashTrie<K, T> without(Object key) throws NullPointerException {
+        if (find(key) == null)
+            return this;
+        return new HashTrie<>(without(root, hash(key), key, 0), size - 1);
+    }
+
+    /**
+     * Iterate over all the elements of the map, in no particular order
+     *
+     * @return an iterator of the entries
+     */
+    @Override
+    public Iterator<Map.Entry<K, T>> iterator() {
+        return new TrieIterator();
+    }
+
+    private Leaf find(Object key) {
+        int hash = hash(key);
+        Node node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            if (node instanceof Leaf leaf)
+                return leaf.hash == hash && leaf.getKey().equals(key) ? leaf : null;
+            if (node instanceof Collision collision)
+                return collision.hash == hash ? collision.find(key) : null;
+
+            Branch branch = (Branch) node;
+            int bit = bit(hash, shift);
+            node = (branch.bitmap & bit) == 0 ? null : branch.children[branch.index(bit)];
+        }
+        return null;
+    }
+
+    private static Node with(Node node, Leaf leaf, int shift) {
+        if (node == null)
+            return leaf;
+
+        if (node instanceof Leaf old) {
+            if (old.hash == leaf.hash)
+                return old.getKey().equals(leaf.getKey()) ? leaf : new Collision(leaf.hash, new Leaf[] { old, leaf });
+            return merge(old, old.hash, leaf, shift);
+        }
+
+        if (node instanceof Collision collision) {
+            if (collision.hash == leaf.hash)
+                return collision.with(leaf);
+            return merge(collision, collision.hash, leaf, shift);
+        }
+
+        Branch branch = (Branch) node;
+        int bit = bit(leaf.hash, shift);
+        int index = branch.index(bit);
+        if ((branch.bitmap & bit) == 0) {
+            Node[] children = new Node[branch.children.length + 1];
+            System.arraycopy(branch.children, 0, children, 0, index);
+            System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+            children[index] = leaf;
+            return new Branch(branch.bitmap | bit, children);
+        }
+
+        Node[] children = branch.children.clone();
+        children[index] = with(children[index], leaf, shift + BITS);
+        return new Branch(branch.bitmap, children);
+    }
+
+    private static Node merge(Node node, int hash, Leaf leaf, int shift) {
+        int bit1 = bit(hash, shift);
+        int bit2 = bit(leaf.hash, shift);
+        if (bit1 == bit2)
+            return new Branch(bit1, new Node[] { merge(node, hash, leaf, shift + BITS) });
+        return new Branch(bit1 | bit2, Integer.compareUnsigned(bit1, bit2) < 0 ? new Node[] { node, leaf } : new Node[] { leaf, node });
+    }
+
+    private static Node without(Node node, int hash, Object key, int shift) {
+        if (node instanceof Leaf)
+            return null;
+        if (node instanceof Collision collision)
+            return collision.without(key);
+
+        Branch branch = (Branch) node;
+        int bit = bit(hash, shift);
+        int index = branch.index(bit);
+        Node child = without(branch.children[index], hash, key, shift + BITS);
+
+        if (child != null) {
+            if (branch.children.length == 1 && !(child instanceof Branch))
+                return child;
+            Node[] children = branch.children.clone();
+            children[index] = child;
+            return new Branch(branch.bitmap, children);
+        }
+
+        if (branch.children.length == 1)
+            return null;
+        if (branch.children.length == 2 && !(branch.children[1 - index] instanceof Branch))
+            return branch.children[1 - index];
+
+        Node[] children = new Node[branch.children.length - 1];
+        System.arraycopy(branch.children, 0, children, 0, index);
+        System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+        return new Branch(branch.bitmap & ~bit, children);
+    }
+
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private interface Node {
+    }
+
+    private static final class Leaf extends AbstractMap.SimpleImmutableEntry<Object, Object> implements Node {
+        private static final long serialVersionUID = 1L;
+        private final int hash;
+
+        private Leaf(int hash, Object key, Object value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    private static final class Collision implements Node {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        private Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private Leaf find(Object key) {
+            for (Leaf leaf : leaves)
+                if (leaf.getKey().equals(key))
+                    return leaf;
+            return null;
+        }
+
+        private Collision with(Leaf leaf) {
+            for (int i = 0; i < leaves.length; i++)
+                if (leaves[i].getKey().equals(leaf.getKey())) {
+                    Leaf[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision(hash, copy);
+                }
+
+            Leaf[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+            copy[leaves.length] = leaf;
+            return new Collision(hash, copy);
+        }
+
+        private Node without(Object key) {
+            int i = 0;
+            while (!leaves[i].getKey().equals(key))
+                i++;
+            if (leaves.length == 2)
+                return leaves[1 - i];
+
+            Leaf[] copy = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, copy, 0, i);
+            System.arraycopy(leaves, i + 1, copy, i, copy.length - i);
+            return new Collision(hash, copy);
+        }
+    }
+
+    private static final class Branch implements Node {
+        private final int bitmap;
+        private final Node[] children;
+
+        private Branch(int bitmap, Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    private class TrieIterator implements Iterator<Map.Entry<K, T>> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+        private final Deque<Leaf> pending = new ArrayDeque<>();
+
+        private TrieIterator() {
+            if (root != null)
+                stack.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty() && !stack.isEmpty()) {
+                Node node = stack.pop();
+                if (node instanceof Leaf leaf)
+                    pending.add(leaf);
+                else if (node instanceof Collision collision)
+                    pending.addAll(Arrays.asList(collision.leaves));
+                else
+                    for (Node child : ((Branch) node).children)
+                        stack.push(child);
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, T> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return (Map.Entry<K, T>) (Map.Entry<?, ?>) pending.poll();
+        }
+    }
+}
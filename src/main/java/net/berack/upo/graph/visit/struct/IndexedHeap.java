@@ -0,0 +1,146 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap of the integers from 0 to capacity - 1, each with a long key.<br>
+ * Since the position of every index is tracked, the key of an index already in the heap
+ * can be decreased in O(log(n)) without searching it, as needed by Prim and Dijkstra.
+ *
+ * @author Berack96
+ */
+public class IndexedHeap {
+    private final int[] heap;
+    private final int[] position;
+    private final long[] keys;
+    private int size = 0;
+
+    /**
+     * Create an empty heap for the indices in [0, capacity)
+     *
+     * @param capacity the number of the possible indices
+     */
+    public IndexedHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Tells how many indices are in the heap.
+     *
+     * @return the size of the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tells if the heap is empty.
+     *
+     * @return true if there are no indices
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Tells if the index is in the heap.
+     *
+     * @param index the index to check
+     * @return true if it is in the heap
+     */
+    public boolean contains(int index) {
+        return position[index] != -1;
+    }
+
+    /**
+     * Get the current key of an index in the heap.
+     *
+     * @param index the index
+     * @return the key of the index
+     * @throws NoSuchElementException if the index is not in the heap
+     */
+    public long getKey(int index) throws NoSuchElementException {
+        if (!contains(index))
+            throw new NoSuchElementException();
+        return keys[index];
+    }
+
+    /**
+     * Insert the index with the key passed.<br>
+     * If the index is already in the heap then its key is changed only if the new one is lower.
+     *
+     * @param index the index to insert
+     * @param key   the key of the index
+     * @return true if the heap is changed
+     */
+    public boolean offer(int index, long key) {
+        int pos = position[index];
+        if (pos == -1) {
+            pos = size++;
+            heap[pos] = index;
+            position[index] = pos;
+        } else if (key >= keys[index])
+            return false;
+
+        keys[index] = key;
+        siftUp(pos);
+        return true;
+    }
+
+    /**
+     * Remove the index with the lowest key from the heap.
+     *
+     * @return the index with the lowest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() throws NoSuchElementException {
+        if (size == 0)
+            throw new NoSuchElementException();
+
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int pos) {
+        int index = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[index])
+                break;
+            move(heap[parent], pos);
+            pos = parent;
+        }
+        move(index, pos);
+    }
+
+    private void siftDown(int pos) {
+        int index = heap[pos];
+        int half = size >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]])
+                child++;
+            if (keys[index] <= keys[heap[child]])
+                break;
+            move(heap[child], pos);
+            pos = child;
+        }
+        move(index, pos);
+    }
+
+    private void move(int index, int pos) {
+        heap[pos] = index;
+        position[index] = pos;
+    }
+}
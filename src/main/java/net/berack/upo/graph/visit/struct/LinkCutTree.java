@@ -0,0 +1,284 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.Arrays;
+
+/**
+ * Link-cut tree (Sleator and Tarjan) over integer nodes, with the maximum key on a path as aggregate.<br>
+ * A node can be created with or without a key: the nodes without a key are never returned by
+ * {@link #pathMax(int, int)}, so the vertices of a forest can be added without a key and
+ * its edges as nodes with a key between the two endpoints.<br>
+ * Every operation costs O(log(n)) amortized.
+ *
+ * @author Berack96
+ */
+public class LinkCutTree {
+    /**
+     * The value returned when there is no node, the node 0 is used internally as the null node
+     */
+    public static final int NONE = 0;
+
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] parent = new int[16];
+    private int[] max = new int[16];
+    private long[] keys = new long[16];
+    private boolean[] keyed = new boolean[16];
+    private boolean[] reversed = new boolean[16];
+    private int[] free = new int[16];
+    private int freeSize = 0;
+    private int nodes = 1;
+
+    /**
+     * Create a new node without a key.
+     *
+     * @return the new node
+     */
+    public int addNode() {
+        int node = allocate();
+        keyed[node] = false;
+        return node;
+    }
+
+    /**
+     * Create a new node with the key passed.
+     *
+     * @param key the key of the node
+     * @return the new node
+     */
+    public int addNode(long key) {
+        int node = allocate();
+        keyed[node] = true;
+        keys[node] = key;
+        return node;
+    }
+
+    /**
+     * Remove a node, so that it can be reused by the next creation.<br>
+     * The node should be already cut from any other node.
+     *
+     * @param node the node to remove
+     */
+    public void removeNode(int node) {
+        if (free.length == freeSize)
+            free = Arrays.copyOf(free, freeSize * 2);
+        free[freeSize++] = node;
+    }
+
+    /**
+     * Get the key of the node
+     *
+     * @param node the node
+     * @return the key of the node
+     */
+    public long getKey(int node) {
+        return keys[node];
+    }
+
+    /**
+     * Tells if the two nodes are in the same tree.
+     *
+     * @param node1 a node
+     * @param node2 another node
+     * @return true if there is a path between the two
+     */
+    public boolean connected(int node1, int node2) {
+        return node1 == node2 || findRoot(node1) == findRoot(node2);
+    }
+
+    /**
+     * Add an edge between two nodes of different trees.
+     *
+     * @param node1 a node
+     * @param node2 a node of another tree
+     * @throws IllegalArgumentException if the two nodes are already in the same tree
+     */
+    public void link(int node1, int node2) throws IllegalArgumentException {
+        if (connected(node1, node2))
+            throw new IllegalArgumentException();
+        makeRoot(node1);
+        parent[node1] = node2;
+    }
+
+    /**
+     * Remove the edge between two nodes.
+     *
+     * @param node1 a node
+     * @param node2 a node adjacent to the first one
+     * @throws IllegalArgumentException if the two nodes are not adjacent
+     */
+    public void cut(int node1, int node2) throws IllegalArgumentException {
+        makeRoot(node1);
+        access(node2);
+        push(node2);
+        if (left[node2] != node1)
+            throw new IllegalArgumentException();
+        push(node1);
+        if (right[node1] != NONE)
+            throw new IllegalArgumentException();
+
+        left[node2] = NONE;
+        parent[node1] = NONE;
+        pull(node2);
+    }
+
+    /**
+     * Find the node with the maximum key on the path between the two nodes passed.<br>
+     * The nodes without a key are ignored.
+     *
+     * @param node1 a node
+     * @param node2 another node of the same tree
+     * @return the node with the maximum key or {@link #NONE} if there isn't any node with a key
+     * @throws IllegalArgumentException if the two nodes are not in the same tree
+     */
+    public int pathMax(int node1, int node2) throws IllegalArgumentException {
+        if (!connected(node1, node2))
+            throw new IllegalArgumentException();
+        makeRoot(node1);
+        access(node2);
+        return keyed[max[node2]] ? max[node2] : NONE;
+    }
+
+    private int allocate() {
+        int node;
+        if (freeSize > 0)
+            node = free[--freeSize];
+        else {
+            if (nodes == left.length)
+                grow();
+            node = nodes++;
+        }
+
+        left[node] = right[node] = parent[node] = NONE;
+        reversed[node] = false;
+        max[node] = node;
+        return node;
+    }
+
+    private void grow() {
+        int size = left.length * 2;
+        left = Arrays.copyOf(left, size);
+        right = Arrays.copyOf(right, size);
+        parent = Arrays.copyOf(parent, size);
+        max = Arrays.copyOf(max, size);
+        keys = Arrays.copyOf(keys, size);
+        keyed = Arrays.copyOf(keyed, size);
+        reversed = Arrays.copyOf(reversed, size);
+    }
+
+    private boolean isSplayRoot(int node) {
+        int p = parent[node];
+        return p == NONE || (left[p] != node && right[p] != node);
+    }
+
+    private boolean greater(int node1, int node2) {
+        if (!keyed[node1])
+            return false;
+        if (!keyed[node2])
+            return true;
+        return keys[node1] > keys[node2] || (keys[node1] == keys[node2] && node1 > node2);
+    }
+
+    private void push(int node) {
+        if (!reversed[node])
+            return;
+
+        int temp = left[node];
+        left[node] = right[node];
+        right[node] = temp;
+        if (left[node] != NONE)
+            reversed[left[node]] ^= true;
+        if (right[node] != NONE)
+            reversed[right[node]] ^= true;
+        reversed[node] = false;
+    }
+
+    private void pull(int node) {
+        int best = node;
+        if (left[node] != NONE && greater(max[left[node]], best))
+            best = max[left[node]];
+        if (right[node] != NONE && greater(max[right[node]], best))
+            best = max[right[node]];
+        max[node] = best;
+    }
+
+    private void rotate(int node) {
+        int p = parent[node];
+        int g = parent[p];
+
+        if (!isSplayRoot(p)) {
+            if (left[g] == p)
+                left[g] = node;
+            else
+                right[g] = node;
+        }
+        parent[node] = g;
+
+        if (left[p] == node) {
+            left[p] = right[node];
+            if (right[node] != NONE)
+                parent[right[node]] = p;
+            right[node] = p;
+        } else {
+            right[p] = left[node];
+            if (left[node] != NONE)
+                parent[left[node]] = p;
+            left[node] = p;
+        }
+        parent[p] = node;
+        pull(p);
+        pull(node);
+    }
+
+    private void splay(int node) {
+        int top = node;
+        int depth = 0;
+        while (!isSplayRoot(top)) {
+            top = parent[top];
+            depth++;
+        }
+
+        int[] path = new int[depth + 1];
+        for (int i = depth, current = node; i >= 0; i--, current = parent[current])
+            path[i] = current;
+        for (int current : path)
+            push(current);
+
+        while (!isSplayRoot(node)) {
+            int p = parent[node];
+            if (!isSplayRoot(p)) {
+                int g = parent[p];
+                boolean zigZig = (left[g] == p) == (left[p] == node);
+                rotate(zigZig ? p : node);
+            }
+            rotate(node);
+        }
+    }
+
+    private void access(int node) {
+        int last = NONE;
+        for (int current = node; current != NONE; current = parent[current]) {
+            splay(current);
+            right[current] = last;
+            pull(current);
+            last = current;
+        }
+        splay(node);
+    }
+
+    private void makeRoot(int node) {
+        access(node);
+        reversed[node] ^= true;
+    }
+
+    private int findRoot(int node) {
+        access(node);
+        while (true) {
+            push(node);
+            if (left[node] == NONE)
+                break;
+            node = left[node];
+        }
+        splay(node);
+        return node;
+    }
+}
@@ -0,0 +1,64 @@
+package net.berack.upo.graph.visit.struct;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the {@link UnionFind} interface with union by rank and path halving.<br>
+ * The elements are mapped to the indices of a {@link DisjointSet}, so both
+ * {@link #union(Object, Object)} and {@link #find(Object)} cost O(α(n)) amortized plus the lookup.
+ *
+ * @param <X> the elements to search and merge
+ * @author Berack96
+ */
+public class QuickUnion<X> implements UnionFind<X> {
+    private final Map<X, Integer> indices = new HashMap<>();
+    private final List<X> elements = new ArrayList<>();
+    private final DisjointSet sets = new DisjointSet();
+
+    @Override
+    public int size() {
+        return sets.size();
+    }
+
+    @Override
+    public void makeSetAll(Collection<X> elements) throws NullPointerException {
+        for (X elem : elements)
+            makeSet(elem);
+    }
+
+    @Override
+    public void makeSet(X element) throws NullPointerException {
+        if (element == null)
+            throw new NullPointerException();
+        if (indices.containsKey(element))
+            return;
+
+        indices.put(element, sets.makeSet());
+        elements.add(element);
+    }
+
+    @Override
+    public boolean union(X element1, X element2) throws NullPointerException, IllegalArgumentException {
+        if (element1 == null || element2 == null)
+            throw new NullPointerException();
+
+        Integer index1 = indices.get(element1);
+        Integer index2 = indices.get(element2);
+        if (index1 == null || index2 == null)
+            throw new IllegalArgumentException();
+        return sets.union(index1, index2);
+    }
+
+    @Override
+    public X find(X element) throws NullPointerException {
+        if (element == null)
+            throw new NullPointerException();
+
+        Integer index = indices.get(element);
+        return index == null ? null : elements.get(sets.find(index));
+    }
+}
@@ -2,20 +2,48 @@ package net.berack.upo.graph.test;
 
 import com.google.gson.JsonSyntaxException;
 
+import net.berack.upo.Batch;
+import net.berack.upo.FilteredGraph;
+import net.berack.upo.FilteredUndGraph;
 import net.berack.upo.Graph;
 import net.berack.upo.GraphDirected;
 import net.berack.upo.GraphUndirected;
+import net.berack.upo.LockedGraph;
+import net.berack.upo.TransposedGraph;
+import net.berack.upo.graph.ConcurrentGraph;
 import net.berack.upo.graph.Edge;
 import net.berack.upo.graph.ListGraph;
 import net.berack.upo.graph.MapGraph;
 import net.berack.upo.graph.MatrixGraph;
 import net.berack.upo.graph.MatrixUndGraph;
+import net.berack.upo.graph.PersistentGraph;
 import net.berack.upo.graph.Vertex;
+import net.berack.upo.graph.VersionedGraph;
+import net.berack.upo.graph.VisitBudget;
+import net.berack.upo.graph.VisitControl;
+import net.berack.upo.graph.VisitStrategy;
 import net.berack.upo.graph.savemodels.GraphSaveStructure;
 import net.berack.upo.graph.visit.BFS;
+import net.berack.upo.graph.visit.Boruvka;
+import net.berack.upo.graph.visit.CompactVisitInfo;
 import net.berack.upo.graph.visit.DFS;
+import net.berack.upo.graph.visit.Dijkstra;
+import net.berack.upo.graph.visit.DirectionOptimizingBFS;
+import net.berack.upo.graph.visit.DynamicMST;
+import net.berack.upo.graph.visit.FilterKruskal;
+import net.berack.upo.graph.visit.Kruskal;
+import net.berack.upo.graph.visit.MultiSourceBFS;
+import net.berack.upo.graph.visit.ParallelBFS;
+import net.berack.upo.graph.visit.Prim;
+import net.berack.upo.graph.visit.Tarjan;
+import net.berack.upo.graph.visit.VisitEvent;
 import net.berack.upo.graph.visit.VisitInfo;
+import net.berack.upo.graph.visit.struct.CompactGraph;
+import net.berack.upo.graph.visit.VisitPublisher;
+import net.berack.upo.graph.visit.struct.ConcurrentUnionFind;
+import net.berack.upo.graph.visit.struct.HashTrie;
 import net.berack.upo.graph.visit.struct.QuickFind;
+import net.berack.upo.graph.visit.struct.QuickUnion;
 import net.berack.upo.graph.visit.struct.UnionFind;
 
 import org.junit.jupiter.api.AfterEach;
@@ -30,8 +58,14 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -48,13 +82,13 @@ public class TestGraph {
     private final Exception unSuppException = new UnsupportedOperationException(Vertex.REMOVED);
     private final Exception notConnException = new UnsupportedOperationException(Graph.NOT_CONNECTED);
 
-    //TODO tests for GraphUndirected minimum spanning forest
     public static Stream<GraphUndirected<String>> getGraphsUnDir() {
         return Stream.of(new MatrixUndGraph<>());
     }
 
     public static Stream<GraphDirected<String>> getGraphsDir() {
-        return Stream.of(new MapGraph<>(), new MatrixGraph<>(), new ListGraph<>());
+        return Stream.of(new MapGraph<>(), new MatrixGraph<>(), new ListGraph<>(), new ConcurrentGraph<>(), new VersionedGraph<>(),
+                new LockedGraph<>(new MatrixGraph<>()));
     }
 
     public static Stream<Graph<String>> getGraphs() {
@@ -62,7 +96,7 @@ public class TestGraph {
     }
 
     public static Stream<UnionFind<String>> getUnionFind() {
-        return Stream.of(new QuickFind<>());
+        return Stream.of(new QuickFind<>(), new QuickUnion<>(), new ConcurrentUnionFind<>());
     }
 
     @BeforeEach
@@ -224,6 +258,37 @@ public class TestGraph {
         assertFalse(tree.union("2", "1"));
     }
 
+    @Test
+    public void concurrentUnionFind() throws InterruptedException {
+        final int threads = 8;
+        final int chains = 16;
+        final int length = 2000;
+        UnionFind<Integer> tree = new ConcurrentUnionFind<>();
+
+        // every thread adds and links its share of the edges of each chain i -> i + chains
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            workers.add(new Thread(() -> {
+                for (int i = offset; i < chains * (length - 1); i += threads) {
+                    tree.makeSet(i);
+                    tree.makeSet(i + chains);
+                    tree.union(i, i + chains);
+                }
+            }));
+        }
+        for (Thread worker : workers)
+            worker.start();
+        for (Thread worker : workers)
+            worker.join();
+
+        assertEquals(chains, tree.size());
+        for (int i = 0; i < chains * length; i++)
+            assertEquals(tree.find(i % chains), tree.find(i));
+        for (int i = 1; i < chains; i++)
+            assertNotEquals(tree.find(0), tree.find(i));
+    }
+
     @ParameterizedTest
     @MethodSource("getGraphs")
     public void basicVertex(Graph<String> graph) {
@@ -332,8 +397,18 @@ public class TestGraph {
         shouldContain(graph.getMarks("8"), "blue");
         shouldContain(graph.marks(), "red", "yellow", "blue");
 
+        Set<Object> marks = graph.getMarks("1");
+        Set<Object> marks7 = graph.getMarks("7");
         graph.unMark("1");
         shouldContain(graph.getMarks("1"));
+        shouldContain(marks);
+        graph.mark("1", "green");
+        graph.mark("7", "green");
+        shouldContain(marks, "green");
+        shouldContain(marks7, "green");
+        shouldThrow(new UnsupportedOperationException(), () -> marks.add("red"));
+        graph.unMark("1");
+        graph.unMark("7");
         shouldContain(graph.marks(), "red", "blue");
         graph.unMark("2");
         shouldContain(graph.getMarks("2"));
@@ -348,8 +423,10 @@ public class TestGraph {
         shouldContain(graph.getMarks("5"), "green");
         shouldContain(graph.marks(), "red", "blue", "green");
 
+        Set<Object> marks2 = graph.getMarks("2");
         graph.unMarkAll();
         shouldContain(graph.marks());
+        shouldContain(marks2);
         shouldContain(graph.getMarks("1"));
         shouldContain(graph.getMarks("2"));
         shouldContain(graph.getMarks("3"));
@@ -363,6 +440,7 @@ public class TestGraph {
         shouldContain(graph.marks(), "mark");
         graph.mark("2", "mark");
         shouldContain(graph.marks(), "mark");
+        shouldContain(marks2, "mark");
         graph.mark("3", "mark2");
         shouldContain(graph.marks(), "mark", "mark2");
         graph.mark("1", "mark2");
@@ -423,6 +501,49 @@ public class TestGraph {
         shouldContain(graph.getMarkedWith(3));
     }
 
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void markerIndex(Graph<String> graph) {
+        final int num = 1000;
+        for (int i = 0; i < num; i++) {
+            String vertex = String.valueOf(i);
+            graph.add(vertex);
+            graph.mark(vertex, i % 2 == 0 ? "even" : "odd");
+            if (i % 100 == 0)
+                graph.mark(vertex, "hundred");
+        }
+
+        assertEquals(num / 2, graph.getMarkedWith("even").size());
+        assertEquals(num / 2, graph.getMarkedWith("odd").size());
+        shouldContain(graph.getMarkedWith("hundred"), "0", "100", "200", "300", "400", "500", "600", "700", "800", "900");
+        shouldContain(graph.marks(), "even", "odd", "hundred");
+
+        graph.unMark("100", "hundred");
+        graph.unMark("200");
+        graph.unMark("300", "not a mark");
+        shouldContain(graph.getMarkedWith("hundred"), "0", "300", "400", "500", "600", "700", "800", "900");
+        assertEquals(num / 2 - 1, graph.getMarkedWith("even").size());
+        assertEquals(8, graph.subGraph("hundred").size());
+        assertEquals(num / 2 + 8, graph.subGraph("odd", "hundred").size());
+
+        Set<Object> marks = graph.getMarks("400");
+        shouldContain(marks, "even", "hundred");
+        shouldThrow(new UnsupportedOperationException(), () -> marks.add("other"));
+        graph.unMarkAll("hundred");
+        shouldContain(marks, "even");
+        shouldContain(graph.getMarkedWith("hundred"));
+        shouldContain(graph.marks(), "even", "odd");
+
+        graph.unMarkAll("even");
+        graph.unMarkAll("odd");
+        shouldContain(graph.marks());
+        shouldContain(graph.getMarks("1"));
+        graph.mark("1", "odd");
+        shouldContain(graph.getMarkedWith("odd"), "1");
+        graph.unMarkAll();
+        shouldContain(graph.getMarkedWith("odd"));
+    }
+
     @ParameterizedTest
     @MethodSource("getGraphs")
     public void basicEdge(Graph<String> graph) {
@@ -950,6 +1071,53 @@ public class TestGraph {
             integer.incrementAndGet();
         });
 
+        List<String> preOrder = new ArrayList<>();
+        List<String> postOrder = new ArrayList<>();
+        List<String> visited = new ArrayList<>();
+        graph.visit("1", new DFS<String>().setPreOrder(preOrder::add).setPostOrder(postOrder::add), visited::add);
+        shouldContainInOrder(preOrder, "1", "2", "5", "3", "4", "6");
+        shouldContainInOrder(postOrder, "3", "6", "4", "5", "2", "1");
+        assertEquals(postOrder, visited);
+
+        List<VisitStrategy<String>> tracked = List.of(new DFS<>(), new BFS<>(), new BFS<String>().setMaxDepth(2), new Dijkstra<>());
+        List<VisitStrategy<String>> untracked = List.of(new DFS<String>().setTrackInfo(false), new BFS<String>().setTrackInfo(false),
+                new BFS<String>().setMaxDepth(2).setTrackInfo(false), new Dijkstra<String>().setTrackInfo(false));
+        for (int i = 0; i < tracked.size(); i++) {
+            List<String> expected = new ArrayList<>();
+            List<String> light = new ArrayList<>();
+            assertNotNull(graph.visit("1", tracked.get(i), expected::add));
+            assertNull(graph.visit("1", untracked.get(i), light::add));
+            assertEquals(expected, light);
+        }
+
+        visited.clear();
+        VisitInfo<String> stopped = graph.visit("1", new BFS<String>().setControl(v -> v.equals("5") ? VisitControl.STOP : VisitControl.CONTINUE), visited::add);
+        shouldContainInOrder(visited, "1", "2", "3", "5");
+        assertFalse(stopped.isDiscovered("4"));
+        visited.clear();
+        graph.visit("1", new BFS<String>().setControl(v -> v.equals("2") ? VisitControl.SKIP_CHILDREN : VisitControl.CONTINUE), visited::add);
+        shouldContainInOrder(visited, "1", "2", "3");
+        visited.clear();
+        graph.visit("1", new BFS<String>().setControl(_ -> VisitControl.SKIP_CHILDREN), visited::add);
+        shouldContainInOrder(visited, "1");
+        visited.clear();
+        graph.visit("1", new BFS<String>().setEdgeFilter((s, d) -> !(s.equals("1") && d.equals("2"))), visited::add);
+        shouldContainInOrder(visited, "1", "3");
+
+        preOrder.clear();
+        visited.clear();
+        stopped = graph.visit("1", new DFS<String>().setPreOrder(preOrder::add).setControl(v -> v.equals("3") ? VisitControl.STOP : VisitControl.CONTINUE), visited::add);
+        shouldContainInOrder(preOrder, "1", "2", "5", "3");
+        assertTrue(visited.isEmpty());
+        assertFalse(stopped.isVisited("3"));
+        preOrder.clear();
+        graph.visit("1", new DFS<String>().setPreOrder(preOrder::add).setControl(v -> v.equals("5") ? VisitControl.SKIP_CHILDREN : VisitControl.CONTINUE), visited::add);
+        shouldContainInOrder(preOrder, "1", "2", "5", "3");
+        shouldContainInOrder(visited, "5", "2", "3", "1");
+        visited.clear();
+        graph.visit("1", new DFS<String>().setEdgeFilter((s, d) -> !(s.equals("5") && d.equals("4"))), visited::add);
+        shouldContainInOrder(visited, "3", "5", "2", "1");
+
         BFS<String> bfs = new BFS<>();
         VisitInfo<String> visitBFS = graph.visit("1", bfs, null);
         assertEquals(0, visitBFS.getTimeDiscover("1"));
@@ -966,6 +1134,43 @@ public class TestGraph {
         assertEquals(11, visitBFS.getTimeVisit("6"));
         assertFalse(visitBFS.isDiscovered("7"));
         assertFalse(visitBFS.isDiscovered("8"));
+
+        VisitInfo<String> visitCompact = graph.visit("1", new ParallelBFS<>(), null);
+        assertInstanceOf(CompactVisitInfo.class, visitCompact);
+        for (String vertex : visitBFS.getDiscovered()) {
+            assertEquals(visitBFS.getTimeDiscover(vertex), visitCompact.getTimeDiscover(vertex));
+            assertEquals(visitBFS.getTimeVisit(vertex), visitCompact.getTimeVisit(vertex));
+            assertEquals(visitBFS.getDepth(vertex), visitCompact.getDepth(vertex));
+            assertEquals(visitBFS.getParentOf(vertex), visitCompact.getParentOf(vertex));
+        }
+        assertEquals(visitBFS.getDiscovered(), visitCompact.getDiscovered());
+        assertEquals(visitBFS.getVisited(), visitCompact.getVisited());
+        List<VisitInfo<String>.VertexInfo> expectedInfo = new ArrayList<>();
+        List<VisitInfo<String>.VertexInfo> actualInfo = new ArrayList<>();
+        visitBFS.forEach(expectedInfo::add);
+        visitCompact.forEach(actualInfo::add);
+        assertEquals(expectedInfo.toString(), actualInfo.toString());
+        expectedInfo.clear();
+        actualInfo.clear();
+        visitBFS.forEachVisited(expectedInfo::add);
+        visitCompact.forEachVisited(actualInfo::add);
+        assertEquals(expectedInfo.toString(), actualInfo.toString());
+        assertFalse(visitCompact.isDiscovered("7"));
+        assertFalse(visitCompact.isVisited("1010"));
+        shouldThrow(illegalException, () -> visitCompact.getTimeDiscover("8"));
+        shouldThrow(illegalException, () -> visitCompact.getParentOf("1010"));
+
+        VisitInfo<String> visitBFSCompact = graph.visit("1", new BFS<String>().setCompact(true), null);
+        assertInstanceOf(CompactVisitInfo.class, visitBFSCompact);
+        expectedInfo.clear();
+        actualInfo.clear();
+        visitBFS.forEach(expectedInfo::add);
+        visitBFSCompact.forEach(actualInfo::add);
+        assertEquals(expectedInfo.toString(), actualInfo.toString());
+        assertEquals(visitBFS.getVisited(), visitBFSCompact.getVisited());
+        assertEquals(2, visitBFSCompact.getDepth("5"));
+        assertEquals("2", visitBFSCompact.getParentOf("5"));
+        assertFalse(visitBFSCompact.isDiscovered("7"));
     }
 
     @ParameterizedTest
@@ -1064,6 +1269,550 @@ public class TestGraph {
         assertFalse(visitBFS.isDiscovered("8"));
     }
 
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void directionOptimizingVisit(Graph<String> graph) {
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < 5000; i++) {
+            String src = String.valueOf(random.nextInt(500));
+            String dest = String.valueOf(random.nextInt(500));
+            if (!src.equals(dest))
+                graph.addEdge(src, dest, 1);
+        }
+
+        shouldThrow(nullException, () -> graph.visit(null, new DirectionOptimizingBFS<>(), null));
+        shouldThrow(notException, () -> graph.visit("1010", new DirectionOptimizingBFS<>(), null));
+
+        for (int depth : new int[] { -1, 0, 1, 2 }) {
+            VisitInfo<String> expected = graph.visit("0", new BFS<String>().setMaxDepth(depth), null);
+            List<String> visited = new ArrayList<>();
+            VisitInfo<String> actual = graph.visit("0", new DirectionOptimizingBFS<String>().setMaxDepth(depth), visited::add);
+
+            assertEquals(expected.getDiscovered(), actual.getDiscovered());
+            assertEquals(expected.getDiscovered().size(), visited.size());
+            assertEquals("0", visited.get(0));
+            assertNull(actual.getParentOf("0"));
+            for (String vertex : actual.getDiscovered()) {
+                assertEquals(expected.getDepth(vertex), actual.getDepth(vertex));
+                String parent = actual.getParentOf(vertex);
+                if (parent != null) {
+                    assertTrue(graph.containsEdge(parent, vertex));
+                    assertEquals(actual.getDepth(vertex) - 1, actual.getDepth(parent));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void parallelVisit(Graph<String> graph) {
+        Random random = new Random(13);
+        List<Edge<String>> edges = new ArrayList<>();
+        for (int i = 0; i < 8000; i++) {
+            String src = String.valueOf(random.nextInt(1000));
+            String dest = String.valueOf(random.nextInt(1000));
+            if (!src.equals(dest))
+                edges.add(new Edge<>(src, dest, 1));
+        }
+        graph.addAllEdges(edges);
+
+        shouldThrow(nullException, () -> graph.visit(null, new ParallelBFS<>(), null));
+        shouldThrow(notException, () -> graph.visit("abc", new ParallelBFS<>(), null));
+        shouldThrow(nullException, () -> new ParallelBFS<>().setPool(null));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int depth : new int[] { -1, 0, 1, 2 }) {
+            VisitInfo<String> expected = graph.visit("0", new BFS<String>().setMaxDepth(depth), null);
+            List<String> visited = new ArrayList<>();
+            VisitInfo<String> actual = graph.visit("0", new ParallelBFS<String>().setPool(pool).setMaxDepth(depth), visited::add);
+
+            assertEquals(expected.getDiscovered(), actual.getDiscovered());
+            assertEquals(expected.getDiscovered().size(), visited.size());
+            assertEquals("0", visited.get(0));
+            for (String vertex : actual.getDiscovered()) {
+                assertEquals(expected.getDepth(vertex), actual.getDepth(vertex));
+                String parent = actual.getParentOf(vertex);
+                if (parent != null)
+                    assertTrue(graph.containsEdge(parent, vertex));
+            }
+
+            ParallelBFS<String> prebuilt = new ParallelBFS<String>().setPool(pool).setMaxDepth(depth).setCompactGraph(new CompactGraph<>(graph, true));
+            assertEquals(expected.getDiscovered(), graph.visit("0", prebuilt, null).getDiscovered());
+            assertEquals(expected.getDiscovered(), graph.visit("0", prebuilt, null).getDiscovered());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void parallelSubGraph() {
+        final int num = Graph.PARALLEL_SUBGRAPH;
+        Random random = new Random(19);
+        MapGraph<Integer> graph = new MapGraph<>();
+        for (int i = 0; i < num; i++)
+            graph.add(i);
+        for (int i = 0; i < num * 2; i++)
+            graph.addEdge(random.nextInt(num), random.nextInt(num), 1);
+
+        for (int depth : new int[] { 0, 1, 3, num }) {
+            Set<Integer> expected = graph.visit(0, new BFS<Integer>().setMaxDepth(depth), null).getDiscovered();
+            Graph<Integer> sub = graph.subGraph(0, depth);
+
+            assertEquals(expected, sub.vertices());
+            for (Integer vertex : expected)
+                for (Integer child : graph.getChildren(vertex))
+                    assertEquals(expected.contains(child), sub.containsEdge(vertex, child));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void multiSourceVisit(Graph<String> graph) {
+        Random random = new Random(17);
+        for (int i = 0; i < 300; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < 700; i++) {
+            String src = String.valueOf(random.nextInt(300));
+            String dest = String.valueOf(random.nextInt(300));
+            if (!src.equals(dest))
+                graph.addEdge(src, dest, 1);
+        }
+
+        MultiSourceBFS<String> msbfs = new MultiSourceBFS<>();
+        shouldThrow(nullException, () -> msbfs.visit(null, List.of("1")));
+        shouldThrow(nullException, () -> msbfs.visit(graph, null));
+        shouldThrow(notException, () -> msbfs.visit(graph, List.of("1", "abc")));
+        assertNull(msbfs.getDepthTable());
+
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 150; i += 1 + random.nextInt(2))
+            sources.add(String.valueOf(random.nextInt(300)));
+        sources.add(sources.get(0));
+
+        for (int depth : new int[] { -1, 0, 2 }) {
+            msbfs.setMaxDepth(depth).visit(graph, sources);
+            assertEquals(new ArrayList<>(new LinkedHashSet<>(sources)), msbfs.getSources());
+            assertEquals(msbfs.getSources().size(), msbfs.getDepthTable().length);
+
+            for (String source : msbfs.getSources()) {
+                VisitInfo<String> info = graph.visit(source, new BFS<String>().setMaxDepth(depth), null);
+                for (String vertex : graph)
+                    assertEquals(info.isDiscovered(vertex) ? info.getDepth(vertex) : MultiSourceBFS.NOT_REACHED, msbfs.getDepth(source, vertex));
+            }
+        }
+        shouldThrow(notException, () -> msbfs.getDepth("abc", "1"));
+        shouldThrow(nullException, () -> msbfs.getDepth(null, "1"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsDir")
+    public void visitPublisher(GraphDirected<String> graph) throws InterruptedException {
+        graph.addAll(List.of("1", "2", "3", "4", "5", "6"));
+        graph.addEdge("1", "2", 1);
+        graph.addEdge("1", "3", 5);
+        graph.addEdge("2", "3", 1);
+        graph.addEdge("3", "4", 1);
+        graph.addEdge("4", "5", 1);
+        graph.addEdge("5", "1", 1);
+
+        shouldThrow(nullException, () -> new VisitPublisher<>(null, "1", BFS::new));
+        shouldThrow(nullException, () -> new VisitPublisher<>(graph, "1", null));
+
+        // every subscriber has its own strategy, so the visits running together don't mix their state
+        VisitPublisher<String> publisher = new VisitPublisher<>(graph, "1", BFS::new);
+        List<List<VisitEvent<String>>> received = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(3);
+        for (int s = 0; s < 3; s++) {
+            List<VisitEvent<String>> list = Collections.synchronizedList(new ArrayList<>());
+            received.add(list);
+            publisher.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(VisitEvent<String> item) {
+                    list.add(item);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+        }
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+
+        for (List<VisitEvent<String>> list : received) {
+            List<String> actual = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                VisitEvent<String> event = list.get(i);
+                assertEquals(i, event.getValue());
+                actual.add(event.getType() + " " + event.getVertex() + " " + event.getParent());
+            }
+            shouldContainInOrder(actual, "DISCOVER 1 null", "VISIT 1 null", "DISCOVER 2 1", "VISIT 2 null", "DISCOVER 3 1", "VISIT 3 null",
+                    "DISCOVER 4 3", "VISIT 4 null", "DISCOVER 5 4", "VISIT 5 null");
+        }
+
+        List<VisitEvent<String>> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch relaxed = new CountDownLatch(4);
+        AtomicInteger ended = new AtomicInteger(0);
+        new VisitPublisher<>(graph, "1", Dijkstra::new).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(4);
+            }
+
+            @Override
+            public void onNext(VisitEvent<String> item) {
+                events.add(item);
+                relaxed.countDown();
+                if (relaxed.getCount() == 0)
+                    subscription.cancel();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                ended.incrementAndGet();
+            }
+
+            @Override
+            public void onComplete() {
+                ended.incrementAndGet();
+            }
+        });
+        assertTrue(relaxed.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(4, events.size());
+        assertEquals(0, ended.get());
+        assertEquals(VisitEvent.Type.RELAX, events.get(3).getType());
+        assertEquals("2", events.get(3).getVertex());
+        assertEquals("1", events.get(3).getParent());
+        assertEquals(1, events.get(3).getValue());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsDir")
+    public void budgetedVisit(GraphDirected<String> graph) throws InterruptedException {
+        for (int i = 0; i < 100; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < 99; i++)
+            graph.addEdge(String.valueOf(i), String.valueOf(i + 1), 1);
+
+        shouldThrow(illegalException, () -> new VisitBudget().setMaxVertices(-1));
+        shouldThrow(illegalException, () -> new VisitBudget().setMaxEdges(-1));
+        shouldThrow(nullException, () -> graph.boundedDistance("0", null));
+
+        VisitBudget budget = new VisitBudget();
+        VisitInfo<String> info = graph.visit("0", new BFS<String>().setBudget(budget), null);
+        assertTrue(info.isComplete());
+        assertFalse(budget.isExhausted());
+        assertEquals(100, budget.getVertices());
+        assertEquals(99, budget.getEdges());
+
+        budget = new VisitBudget().setMaxVertices(10);
+        info = graph.visit("0", new BFS<String>().setBudget(budget), null);
+        assertFalse(info.isComplete());
+        assertTrue(budget.isExhausted());
+        assertEquals(11, info.getDiscovered().size());
+
+        budget = new VisitBudget().setMaxEdges(5);
+        info = graph.visit("0", new DFS<String>().setBudget(budget), null);
+        assertFalse(info.isComplete());
+        assertEquals(6, info.getDiscovered().size());
+        assertTrue(info.getVisited().isEmpty());
+
+        budget = new VisitBudget();
+        budget.cancel();
+        info = graph.visit("0", new BFS<String>().setBudget(budget), null);
+        assertFalse(info.isComplete());
+        assertEquals(Set.of("0"), info.getDiscovered());
+
+        budget = new VisitBudget().setTimeout(Duration.ZERO);
+        Thread.sleep(1);
+        assertTrue(budget.isExhausted());
+        assertFalse(graph.visit("0", new ParallelBFS<String>().setBudget(budget), null).isComplete());
+
+        budget = new VisitBudget().setMaxVertices(5);
+        Map<String, List<Edge<String>>> distance = graph.boundedDistance("0", budget);
+        assertTrue(budget.isExhausted());
+        assertEquals(Set.of("1", "2", "3", "4"), distance.keySet());
+        for (int i = 1; i < 5; i++)
+            assertEquals(graph.distance("0", String.valueOf(i)), distance.get(String.valueOf(i)));
+
+        assertEquals(graph.stronglyConnectedComponents(), graph.stronglyConnectedComponents(new VisitBudget()));
+        budget = new VisitBudget().setMaxVertices(0);
+        assertEquals(Set.of(), graph.stronglyConnectedComponents(budget));
+        Tarjan<String> tarjan = new Tarjan<String>().setBudget(new VisitBudget().setMaxVertices(50));
+        assertFalse(graph.visit(null, tarjan, null).isComplete());
+        assertNull(tarjan.getTopologicalSort());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsUnDir")
+    public void connectedComponents(GraphUndirected<String> graph) {
+        /*
+         * This graph should be like this
+         *
+         * 1 - 2   6   7   9
+         * |   |   |   |
+         * 3 - 5 - 4   8
+         */
+        assertEquals(0, graph.connectedComponents().size());
+        graph.addAll(List.of("1", "2", "3", "4", "5", "6", "7", "8", "9"));
+        assertEquals(9, graph.connectedComponents().size());
+
+        graph.addEdge("1", "2");
+        graph.addEdge("1", "3");
+        graph.addEdge("2", "5");
+        graph.addEdge("3", "5");
+        graph.addEdge("4", "6");
+        graph.addEdge("5", "4");
+        graph.addEdge("7", "8");
+
+        Set<Set<String>> components = graph.connectedComponents();
+        shouldContain(components,
+                Set.of("1", "2", "3", "4", "5", "6"),
+                Set.of("7", "8"),
+                Set.of("9"));
+
+        graph.removeEdge("5", "4");
+        graph.addEdge("8", "9");
+        components = graph.connectedComponents();
+        shouldContain(components,
+                Set.of("1", "2", "3", "5"),
+                Set.of("4", "6"),
+                Set.of("7", "8", "9"));
+
+        shouldThrow(illegalException, () -> graph.connectedComponentIds(0));
+        for (int parallelism : new int[] { 1, 4 }) {
+            int[] ids = graph.connectedComponentIds(parallelism);
+            Map<String, Integer> labels = new HashMap<>();
+            Iterator<String> iter = graph.iterator();
+            for (int id : ids)
+                labels.put(iter.next(), id);
+
+            assertEquals(3, new HashSet<>(labels.values()).size());
+            for (Set<String> component : components)
+                for (String vertex : component)
+                    assertEquals(labels.get(component.iterator().next()), labels.get(vertex));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsUnDir")
+    public void viewsUnDir(GraphUndirected<String> graph) {
+        graph.addAll(List.of("1", "2", "3", "4", "5", "6", "7", "8", "9"));
+        graph.addEdge("1", "2");
+        graph.addEdge("1", "3");
+        graph.addEdge("2", "5");
+        graph.addEdge("3", "5");
+        graph.addEdge("4", "6");
+        graph.addEdge("5", "4");
+        graph.addEdge("7", "8");
+
+        FilteredUndGraph<String> filtered = graph.subGraphView(v -> !v.equals("5"));
+        assertEquals(8, filtered.size());
+        assertEquals(4, filtered.numberOfEdges());
+        assertEquals(1, filtered.degree("2"));
+        shouldContain(filtered.getChildren("1"), "2", "3");
+        shouldContainUnDir(filtered.edges(),
+                new Edge<>("1", "2", 1),
+                new Edge<>("1", "3", 1),
+                new Edge<>("4", "6", 1),
+                new Edge<>("7", "8", 1));
+        shouldContain(filtered.connectedComponents(),
+                Set.of("1", "2", "3"),
+                Set.of("4", "6"),
+                Set.of("7", "8"),
+                Set.of("9"));
+        shouldThrow(notException, () -> filtered.getWeight("5", "4"));
+        assertEquals(filtered.edges(), filtered.materialize().edges());
+
+        List<String> order = new ArrayList<>();
+        List<String> viewOrder = new ArrayList<>();
+        graph.visit("1", new DFS<>(), order::add);
+        graph.subGraphView(_ -> true).visit("1", new DFS<>(), viewOrder::add);
+        assertEquals(order, viewOrder);
+
+        graph.mark("7", "a");
+        graph.mark("8", "a");
+        FilteredUndGraph<String> marked = graph.subGraphView("a");
+        shouldContain(marked.vertices(), "7", "8");
+        marked.removeEdge("7", "8");
+        assertFalse(graph.containsEdge("8", "7"));
+        graph.unMark("8");
+        shouldContain(marked.vertices(), "7");
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsUnDir")
+    public void minimumSpanningForest(GraphUndirected<String> graph) {
+        /*
+         * This graph should be like this (the numbers on the edges are the weights)
+         *
+         * 1 -4- 2       6   7
+         * |   / |       |   |
+         * 1  2  5       7   6
+         * | /   |       |   |
+         * 3 -8- 5 --3-- 4   8
+         *
+         * plus the edge 5 -9- 6
+         */
+        assertEquals(0, graph.minimumSpanningForest().size());
+        graph.addAll(List.of("1", "2", "3", "4", "5", "6", "7", "8"));
+        assertEquals(0, graph.minimumSpanningForest().size());
+
+        graph.addEdge("1", "2", 4);
+        graph.addEdge("1", "3", 1);
+        graph.addEdge("2", "3", 2);
+        graph.addEdge("2", "5", 5);
+        graph.addEdge("3", "5", 8);
+        graph.addEdge("5", "4", 3);
+        graph.addEdge("4", "6", 7);
+        graph.addEdge("5", "6", 9);
+        graph.addEdge("7", "8", 6);
+
+        List<Edge<String>> expected = List.of(
+                new Edge<>("1", "3", 1),
+                new Edge<>("2", "3", 2),
+                new Edge<>("5", "4", 3),
+                new Edge<>("2", "5", 5),
+                new Edge<>("7", "8", 6),
+                new Edge<>("4", "6", 7));
+        shouldContainUnDir(graph.minimumSpanningForest(), expected);
+
+        Prim<String> prim = new Prim<>();
+        VisitInfo<String> info = graph.visit("5", prim, null);
+        shouldContainUnDir(prim.getMST(), expected);
+        assertEquals("5", info.getSource());
+        assertNull(info.getParentOf("5"));
+        assertNull(info.getParentOf("7"));
+        assertEquals("5", info.getParentOf("2"));
+        assertEquals("5", info.getParentOf("4"));
+        assertEquals("7", info.getParentOf("8"));
+        for (String vertex : graph)
+            assertTrue(info.isVisited(vertex));
+
+        Kruskal<String> kruskal = new Kruskal<>();
+        graph.visit("1", kruskal, null);
+        shouldContainUnDir(kruskal.getMST(), expected);
+
+        FilterKruskal<String> filter = new FilterKruskal<>();
+        graph.visit(null, filter, null);
+        shouldContainUnDir(filter.getMST(), expected);
+        shouldContainUnDir(graph.minimumSpanningForest(new Boruvka<>()), expected);
+        shouldThrow(nullException, () -> graph.minimumSpanningForest(null));
+
+        graph.removeEdge("2", "5");
+        shouldContainUnDir(graph.minimumSpanningForest(),
+                new Edge<>("1", "3", 1),
+                new Edge<>("2", "3", 2),
+                new Edge<>("5", "4", 3),
+                new Edge<>("7", "8", 6),
+                new Edge<>("4", "6", 7),
+                new Edge<>("3", "5", 8));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsUnDir")
+    public void minimumSpanningForestBig(GraphUndirected<String> graph) {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < 6000; i++) {
+            String src = String.valueOf(random.nextInt(300));
+            String dest = String.valueOf(random.nextInt(300));
+            if (!src.equals(dest))
+                graph.addEdge(src, dest, 1 + random.nextInt(20));
+        }
+
+        Kruskal<String> kruskal = new Kruskal<>();
+        graph.visit(null, kruskal, null);
+        Set<Edge<String>> expected = kruskal.getMST();
+        int weight = expected.stream().mapToInt(Edge::getWeight).sum();
+
+        FilterKruskal<String> filter = new FilterKruskal<>();
+        graph.visit(null, filter, null);
+        assertEquals(expected, filter.getMST());
+        assertEquals(expected, graph.minimumSpanningForest(new Boruvka<>()));
+
+        Prim<String> prim = new Prim<>();
+        graph.visit(null, prim, null);
+        assertEquals(weight, prim.getMST().stream().mapToInt(Edge::getWeight).sum());
+        assertEquals(expected, prim.getMST());
+        graph.visit("150", prim, null);
+        assertEquals(expected, prim.getMST());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsUnDir")
+    public void dynamicMinimumSpanningForest(GraphUndirected<String> graph) {
+        Random random = new Random(7);
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++)
+            weights.add(i);
+        Collections.shuffle(weights, random);
+
+        for (int i = 0; i < 40; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < 60; i++) {
+            int src = random.nextInt(40);
+            graph.addEdge(String.valueOf(src), String.valueOf((src + 1 + random.nextInt(39)) % 40), weights.remove(0));
+        }
+
+        DynamicMST<String> dynamic = new DynamicMST<>();
+        shouldThrow(new IllegalStateException(), () -> dynamic.addEdge("0", "1", 1));
+        shouldThrow(new IllegalStateException(), () -> dynamic.removeEdge("0", "1"));
+        graph.visit(null, dynamic, null);
+
+        for (int i = 0; i < 300; i++) {
+            String src = String.valueOf(random.nextInt(45));
+            String dest = String.valueOf(random.nextInt(45));
+            if (src.equals(dest))
+                continue;
+
+            if (random.nextInt(3) == 0 && graph.contains(src) && graph.contains(dest))
+                dynamic.removeEdge(src, dest);
+            else
+                dynamic.addEdge(src, dest, weights.remove(0));
+
+            Kruskal<String> kruskal = new Kruskal<>();
+            graph.visit(null, kruskal, null);
+            assertEquals(kruskal.getMST(), dynamic.getMST());
+        }
+
+        // with only three weights almost every choice is a tie
+        for (int i = 0; i < 200; i++) {
+            String src = String.valueOf(random.nextInt(45));
+            String dest = String.valueOf(random.nextInt(45));
+            if (src.equals(dest))
+                continue;
+
+            if (random.nextInt(3) == 0 && graph.contains(src) && graph.contains(dest))
+                dynamic.removeEdge(src, dest);
+            else
+                dynamic.addEdge(dest, src, 1 + random.nextInt(3));
+
+            Kruskal<String> kruskal = new Kruskal<>();
+            graph.visit(null, kruskal, null);
+            assertEquals(kruskal.getMST(), dynamic.getMST());
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("getGraphs")
     public void iterable(Graph<String> graph) {
@@ -1239,6 +1988,540 @@ public class TestGraph {
         assertFalse(graph.isDAG());
     }
 
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void removeAllVertices(Graph<String> graph) {
+        final int num = 100;
+        Random random = new Random(11);
+        for (int i = 0; i < num; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < num * 5; i++) {
+            int source = random.nextInt(num);
+            int destination = (source + 1 + random.nextInt(num - 1)) % num;
+            graph.addEdge(String.valueOf(source), String.valueOf(destination), random.nextInt(9) + 1);
+        }
+        graph.mark("10", "mark");
+        graph.mark("11", "mark");
+
+        List<String> toRemove = new ArrayList<>();
+        for (int i = 0; i < num; i += 10)
+            toRemove.add(String.valueOf(i));
+        toRemove.add("not here");
+        toRemove.add(null);
+
+        Set<Edge<String>> expected = new HashSet<>();
+        for (Edge<String> edge : graph.edges())
+            if (!toRemove.contains(edge.getSource()) && !toRemove.contains(edge.getDestination()))
+                expected.add(edge);
+
+        graph.removeAll(toRemove);
+        assertEquals(num - num / 10, graph.size());
+        for (int i = 0; i < num; i++)
+            assertEquals(i % 10 != 0, graph.contains(String.valueOf(i)));
+        assertEquals(expected, new HashSet<>(graph.edges()));
+        assertEquals(expected.size(), graph.numberOfEdges());
+        shouldContain(graph.getMarkedWith("mark"), "11");
+
+        graph.add("0");
+        assertEquals(0, graph.degree("0"));
+        graph.addEdge("0", "1", 3);
+        assertEquals(3, graph.getWeight("0", "1"));
+
+        graph.removeAll(List.of());
+        assertEquals(num - num / 10 + 1, graph.size());
+        graph.removeAll(graph.vertices());
+        assertEquals(0, graph.size());
+        assertEquals(0, graph.numberOfEdges());
+        shouldThrow(nullException, () -> graph.removeAll(null));
+    }
+
+    @Test
+    @Timeout(20)
+    public void concurrentGraph() throws InterruptedException {
+        final int writers = 4;
+        final int readers = 4;
+        final int num = 200;
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>(16);
+        for (int i = 0; i < num; i++)
+            graph.add(i);
+        shouldThrow(illegalException, () -> new ConcurrentGraph<>(0));
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger errors = new AtomicInteger(0);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            final int id = w;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = id; i < num; i += writers)
+                        for (int j = 0; j < num; j += 3)
+                            graph.addEdge(i, j, 1 + (i + j) % 5);
+                    for (int i = id; i < num; i += writers)
+                        graph.removeEdge(i, 0);
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 20; i++) {
+                        graph.visit(0, new BFS<>(), null);
+                        graph.numberOfEdges();
+                        for (Integer vertex : graph)
+                            graph.getChildren(vertex);
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        int perVertex = (num + 2) / 3 - 1;
+        assertEquals(0, errors.get());
+        assertEquals(num * perVertex, graph.numberOfEdges());
+        assertEquals(num * perVertex, graph.edges().size());
+        for (int i = 0; i < num; i++) {
+            assertEquals(perVertex, graph.degreeOut(i));
+            assertEquals(i % 3 == 0 && i != 0 ? num : 0, graph.degreeIn(i));
+            assertEquals(graph.getAncestors(i).size(), graph.degreeIn(i));
+        }
+
+        graph.remove(3);
+        assertEquals(num * perVertex - perVertex - num + 1, graph.numberOfEdges());
+        graph.add(6);
+        assertEquals(0, graph.degree(6));
+        assertEquals(graph.edges().size(), graph.numberOfEdges());
+        assertEquals(num - 1, graph.size());
+    }
+
+    @Test
+    @Timeout(20)
+    public void versionedGraph() throws InterruptedException {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        graph.addAll(List.of("1", "2", "3", "4"));
+        graph.addEdge("1", "2", 1);
+        graph.addEdge("2", "3", 2);
+        graph.addEdge("3", "1", 3);
+        long version = graph.getVersion();
+
+        VersionedGraph.Snapshot<String> snapshot = graph.snapshot();
+        assertEquals(version, snapshot.getVersion());
+        graph.addEdge("3", "4", 4);
+        graph.removeEdge("1", "2");
+        graph.remove("2");
+        graph.add("5");
+        graph.add("2");
+        graph.addEdge("2", "5", 6);
+
+        shouldContain(snapshot.vertices(), "1", "2", "3", "4");
+        assertEquals(4, snapshot.size());
+        assertEquals(3, snapshot.numberOfEdges());
+        assertEquals(1, snapshot.getWeight("1", "2"));
+        assertEquals(Graph.NO_EDGE, snapshot.getWeight("3", "4"));
+        shouldContain(snapshot.getChildren("2"), "3");
+        shouldContain(snapshot.getAncestors("1"), "3");
+        shouldThrow(notException, () -> snapshot.getChildren("5"));
+        shouldContain(snapshot.stronglyConnectedComponents(), Set.of("1", "2", "3"), Set.of("4"));
+        shouldThrow(new UnsupportedOperationException(), () -> snapshot.add("6"));
+        shouldThrow(new UnsupportedOperationException(), () -> snapshot.remove("1"));
+        shouldThrow(new UnsupportedOperationException(), () -> snapshot.addEdge("1", "4", 1));
+
+        shouldContain(graph.vertices(), "1", "2", "3", "4", "5");
+        assertEquals(3, graph.numberOfEdges());
+        shouldContain(graph.getChildren("2"), "5");
+        shouldContain(graph.getAncestors("1"), "3");
+        assertEquals(Graph.NO_EDGE, graph.getWeight("2", "3"));
+
+        Graph<String> copy = snapshot.subGraph();
+        assertEquals(snapshot.edges(), copy.edges());
+        snapshot.close();
+        snapshot.close();
+        graph.remove("4");
+        shouldContain(graph.vertices(), "1", "2", "3", "5");
+        assertEquals(2, graph.numberOfEdges());
+
+        final int num = 100;
+        graph.removeAll();
+        for (int i = 0; i < num; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < num; i++)
+            graph.addEdge(String.valueOf(i), String.valueOf((i + 1) % num), 1);
+
+        VersionedGraph.Snapshot<String> ring = graph.snapshot();
+        AtomicInteger errors = new AtomicInteger(0);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int round = 0; round < 50; round++)
+                for (int i = 0; i < num; i++) {
+                    graph.removeEdge(String.valueOf(i), String.valueOf((i + 1) % num));
+                    graph.addEdge(String.valueOf(i), String.valueOf((i + 2) % num), round + 1);
+                    graph.removeEdge(String.valueOf(i), String.valueOf((i + 2) % num));
+                    graph.addEdge(String.valueOf(i), String.valueOf((i + 1) % num), round + 1);
+                }
+        });
+        Thread reader = Thread.ofPlatform().start(() -> {
+            for (int round = 0; round < 50; round++) {
+                if (ring.edges().size() != num || ring.stronglyConnectedComponents().size() != 1)
+                    errors.incrementAndGet();
+                if (ring.distance("0", String.valueOf(num - 1)).size() != num - 1)
+                    errors.incrementAndGet();
+            }
+        });
+        writer.join();
+        reader.join();
+        ring.close();
+
+        assertEquals(0, errors.get());
+        assertEquals(num, graph.numberOfEdges());
+        assertEquals(50, graph.getWeight("0", "1"));
+
+        graph.removeAll();
+        for (int i = 0; i < 50; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < 50; i++)
+            for (int j = 0; j < 50; j++)
+                graph.addEdge(String.valueOf(i), String.valueOf(j), 1);
+        graph.add("0");
+        assertEquals(0, graph.degreeOut("0"));
+        assertEquals(50 * 49 - 49, graph.numberOfEdges());
+
+        VersionedGraph.Snapshot<String> complete = graph.snapshot();
+        for (int i = 0; i < 50; i++)
+            graph.remove(String.valueOf(i));
+        assertEquals(0, graph.size());
+        assertEquals(50, graph.getRetainedVertices());
+        assertEquals(50 * 49 - 49, complete.numberOfEdges());
+        complete.close();
+        assertEquals(0, graph.getRetainedVertices());
+
+        graph.add("0");
+        graph.add("1");
+        assertEquals(2, graph.getRetainedVertices());
+        assertEquals(0, graph.numberOfEdges());
+        assertEquals(0, graph.degreeIn("0"));
+        shouldContain(graph.getChildren("1"));
+    }
+
+    @Test
+    public void hashTrie() {
+        Random random = new Random(3);
+        Map<String, Integer> expected = new HashMap<>();
+        HashTrie<String, Integer> trie = HashTrie.empty();
+        List<String> keys = new ArrayList<>(List.of("Aa", "BB", "AaAa", "BBBB", "AaBB", "BBAa"));
+        for (int i = 0; i < 3000; i++)
+            keys.add(String.valueOf(i));
+
+        for (int i = 0; i < 20000; i++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                trie = trie.without(key);
+            } else {
+                expected.put(key, i);
+                trie = trie.with(key, i);
+            }
+        }
+
+        HashTrie<String, Integer> old = trie;
+        assertEquals(expected.size(), trie.size());
+        for (String key : keys)
+            assertEquals(expected.get(key), trie.get(key));
+        Map<String, Integer> iterated = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : trie)
+            assertNull(iterated.put(entry.getKey(), entry.getValue()));
+        assertEquals(expected, iterated);
+
+        for (String key : keys)
+            trie = trie.without(key);
+        assertTrue(trie.isEmpty());
+        assertFalse(trie.iterator().hasNext());
+        assertEquals(expected.size(), old.size());
+        assertSame(old, old.without("not here"));
+        shouldThrow(new NullPointerException(), () -> old.with("Aa", null));
+        shouldThrow(new NullPointerException(), () -> old.get(null));
+    }
+
+    @Test
+    public void persistentGraph() {
+        PersistentGraph<String> empty = new PersistentGraph<>();
+        PersistentGraph<String> vertices = empty;
+        for (String vertex : List.of("1", "2", "3", "4"))
+            vertices = vertices.withVertex(vertex);
+        PersistentGraph<String> graph = vertices.withEdge("1", "2", 1)
+                .withEdge("2", "3", 2)
+                .withEdge("3", "1", 3)
+                .withEdge("3", "3", 4);
+
+        assertEquals(0, empty.size());
+        assertSame(graph, graph.withVertex("1"));
+        assertSame(graph, graph.withEdge("1", "2", 1));
+        assertSame(graph, graph.withoutEdge("1", "3"));
+        assertEquals(4, graph.size());
+        assertEquals(4, graph.numberOfEdges());
+        shouldContain(graph.getChildren("3"), "1", "3");
+        shouldContain(graph.getAncestors("3"), "2", "3");
+        shouldContain(graph.stronglyConnectedComponents(), Set.of("1", "2", "3"), Set.of("4"));
+
+        PersistentGraph<String> changed = graph.withEdge("1", "2", 5).withoutEdge("2", "3").withoutVertex("3");
+        assertEquals(1, graph.getWeight("1", "2"));
+        assertEquals(2, graph.getWeight("2", "3"));
+        shouldContain(graph.vertices(), "1", "2", "3", "4");
+        assertEquals(5, changed.getWeight("1", "2"));
+        shouldContain(changed.vertices(), "1", "2", "4");
+        assertEquals(1, changed.numberOfEdges());
+        shouldContain(changed.getAncestors("1"));
+        shouldThrow(notException, () -> changed.withEdge("1", "3", 1));
+        shouldThrow(nullException, () -> changed.withVertex(null));
+
+        shouldThrow(new UnsupportedOperationException(), () -> graph.add("5"));
+        shouldThrow(new UnsupportedOperationException(), () -> graph.remove("1"));
+        shouldThrow(new UnsupportedOperationException(), () -> graph.addEdge("1", "4", 1));
+        assertEquals(PersistentGraph.class, graph.transpose().getClass());
+        assertEquals(PersistentGraph.class, graph.subGraph("1", 1).getClass());
+        assertEquals(graph.edges(), graph.subGraphView(_ -> true).materialize().edges());
+        assertEquals(graph.edges(), new LockedGraph<>(graph).transpose().transpose().edges());
+        GraphDirected<String> transposed = graph.transpose();
+        assertEquals(graph.numberOfEdges(), transposed.numberOfEdges());
+        for (Edge<String> edge : graph.edges())
+            assertEquals(edge.getWeight(), transposed.getWeight(edge.getDestination(), edge.getSource()));
+
+        final int num = 2000;
+        List<PersistentGraph<Integer>> versions = new ArrayList<>();
+        PersistentGraph<Integer> version = new PersistentGraph<>();
+        for (int i = 0; i < num; i++)
+            version = version.withVertex(i);
+        for (int i = 0; i < num; i++) {
+            version = version.withEdge(i, (i + 1) % num, 1);
+            versions.add(version);
+        }
+        for (int i = 0; i < num; i += 100)
+            version = version.withoutVertex(i);
+
+        for (int i = 0; i < num; i++)
+            assertEquals(i + 1, versions.get(i).numberOfEdges());
+        assertEquals(num - num / 100, version.size());
+        assertEquals(num - 2 * num / 100, version.numberOfEdges());
+        assertEquals(num, versions.get(num - 1).visit(0, new BFS<>(), null).getDiscovered().size());
+
+        MapGraph<Integer> copy = new MapGraph<>();
+        copy.addAllEdges(version.edges());
+        assertEquals(version.edges(), PersistentGraph.of(copy).edges());
+    }
+
+    @Test
+    @Timeout(20)
+    public void lockedGraph() throws InterruptedException {
+        final int num = 100;
+        LockedGraph<Integer> graph = new LockedGraph<>(new MapGraph<>());
+        for (int i = 0; i < num; i++)
+            graph.add(i);
+        for (int i = 0; i < num; i++)
+            graph.addEdge(i, (i + 1) % num, 1);
+        shouldThrow(nullException, () -> new LockedGraph<>(null));
+        shouldThrow(new IllegalStateException(), () -> graph.read(g -> {
+            g.add(num);
+            return null;
+        }));
+
+        AtomicInteger errors = new AtomicInteger(0);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            final int id = w;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int round = 0; round < 200; round++) {
+                    int vertex = id + 2 * (round % (num / 2));
+                    int weight = round + 1;
+                    graph.write(g -> {
+                        g.removeEdge(vertex, (vertex + 1) % num);
+                        g.addEdge(vertex, (vertex + 2) % num, 1);
+                        g.removeEdge(vertex, (vertex + 2) % num);
+                        g.addEdge(vertex, (vertex + 1) % num, weight);
+                    });
+                }
+            }));
+        }
+        for (int r = 0; r < 4; r++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int round = 0; round < 50; round++) {
+                    int edges = graph.read(g -> g.distance(0, num - 1).size());
+                    if (edges != num - 1 || graph.numberOfEdges() != num || !graph.contains(0))
+                        errors.incrementAndGet();
+                    graph.getChildren(round);
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, errors.get());
+        assertEquals(num, graph.numberOfEdges());
+        assertEquals(200, graph.getWeight(num - 2, num - 1));
+        assertEquals(200, graph.getWeight(num - 1, 0));
+        assertEquals(LockedGraph.class, graph.transpose().getClass());
+
+        graph.write(g -> {
+            assertEquals(num, g.transpose().numberOfEdges());
+            assertEquals(11, g.subGraph(0, 10).size());
+            assertEquals(num, g.subGraphView(_ -> true).subGraph(0, num).numberOfEdges());
+            g.addAllEdges(List.of(new Edge<>(num, 0, 1)));
+        });
+        int transposed = graph.read(g -> g.transpose().numberOfEdges());
+        int sub = graph.read(g -> g.subGraph(num, 1).numberOfEdges());
+        assertEquals(num + 1, transposed);
+        assertEquals(1, sub);
+
+        Thread batches = Thread.ofPlatform().start(() -> {
+            for (int round = 0; round < 2000; round++) {
+                int removed = num + round % 2;
+                int added = num + 1 - round % 2;
+                graph.batch(batch -> batch.remove(removed).add(added).addEdge(added, 0, 1));
+            }
+        });
+        while (batches.isAlive())
+            if (graph.size() != num + 1 || graph.numberOfEdges() != num + 1)
+                errors.incrementAndGet();
+        batches.join();
+        assertEquals(0, errors.get());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void batch(Graph<String> graph) {
+        graph.batch(batch -> {
+            for (int i = 0; i < 6; i++)
+                batch.add(String.valueOf(i));
+            batch.addEdge("0", "1", 1)
+                    .addEdge("1", "2", 2)
+                    .addEdge("2", "3", 3)
+                    .addEdge("3", "4", 4)
+                    .addEdge("3", "4", 5)
+                    .addEdge("4", "5", 6)
+                    .removeEdge("4", "5");
+        });
+        shouldContain(graph.vertices(), "0", "1", "2", "3", "4", "5");
+        assertEquals(4, graph.numberOfEdges());
+        assertEquals(5, graph.getWeight("3", "4"));
+        assertEquals(Graph.NO_EDGE, graph.getWeight("4", "5"));
+
+        graph.mark("2", "mark");
+        Batch<String> batch = graph.beginBatch();
+        batch.remove("2")
+                .add("2")
+                .addEdge("2", "5", 7)
+                .add("6")
+                .addEdge("6", "0", 8)
+                .remove("6")
+                .removeEdge("0", "1")
+                .add("7")
+                .remove("7");
+        assertEquals(4, batch.size());
+        assertEquals(4, graph.numberOfEdges());
+        batch.commit();
+        assertEquals(0, batch.size());
+
+        shouldContain(graph.vertices(), "0", "1", "2", "3", "4", "5");
+        shouldContain(graph.getMarks("2"));
+        assertEquals(7, graph.getWeight("2", "5"));
+        assertEquals(Graph.NO_EDGE, graph.getWeight("1", "2"));
+        assertEquals(Graph.NO_EDGE, graph.getWeight("0", "1"));
+        assertEquals(2, graph.numberOfEdges());
+
+        batch.add("8").addEdge("8", "9", 1).addEdge("0", "1", 1);
+        shouldThrow(notException, batch::commit);
+        assertFalse(graph.contains("8"));
+        assertEquals(Graph.NO_EDGE, graph.getWeight("0", "1"));
+        shouldThrow(notException, () -> graph.batch(b -> b.remove("9")));
+        shouldThrow(nullException, () -> graph.batch(b -> b.add(null)));
+        shouldThrow(nullException, () -> graph.batch(b -> b.addEdge("0", null, 1)));
+        shouldThrow(nullException, () -> graph.batch(null));
+        assertEquals(6, graph.size());
+
+        List<Edge<String>> edges = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+            edges.add(new Edge<>("v" + i, "v" + (i + 1), i + 1));
+        graph.addAllEdges(edges);
+        assertEquals(507, graph.size());
+        assertEquals(502, graph.numberOfEdges());
+        assertEquals(250, graph.getWeight("v249", "v250"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphsUnDir")
+    public void batchUnDir(GraphUndirected<String> graph) {
+        graph.addAll(List.of("a", "b", "c"));
+        graph.batch(b -> b.addEdge("b", "a", 3).removeEdge("a", "b"));
+        assertFalse(graph.containsEdge("a", "b"));
+        graph.batch(b -> b.addEdge("a", "b", 3).removeEdge("b", "a"));
+        assertFalse(graph.containsEdge("a", "b"));
+
+        graph.batch(b -> b.removeEdge("a", "b").addEdge("b", "a", 4).addEdge("c", "b", 1).addEdge("b", "c", 2));
+        assertEquals(4, graph.getWeight("a", "b"));
+        assertEquals(2, graph.getWeight("c", "b"));
+        assertEquals(2, graph.beginBatch().addEdge("a", "c", 1).addEdge("c", "a", 2).addEdge("a", "b", 1).size());
+
+        FilteredUndGraph<String> view = graph.subGraphView(v -> !v.equals("z"));
+        shouldThrow(illegalException, () -> view.batch(b -> b.remove("c").add("z")));
+        assertTrue(graph.contains("c"));
+        assertFalse(graph.contains("z"));
+        assertEquals(2, graph.numberOfEdges());
+    }
+
+    @ParameterizedTest
+    @MethodSource("getGraphs")
+    public void bulkCopy(Graph<String> graph) {
+        final int num = 300;
+        Random random = new Random(7);
+        for (int i = 0; i < num; i++)
+            graph.add(String.valueOf(i));
+        for (int i = 0; i < num * 4; i++) {
+            int source = random.nextInt(num);
+            int destination = (source + 1 + random.nextInt(num - 1)) % num;
+            graph.addEdge(String.valueOf(source), String.valueOf(destination), random.nextInt(9) + 1);
+        }
+        for (int i = 0; i < num; i += 3)
+            graph.mark(String.valueOf(i), "three");
+
+        Graph<String> copy = graph.subGraph();
+        assertEquals(graph.getClass(), copy.getClass());
+        assertEquals(graph.size() - num / 3, copy.size());
+        for (Edge<String> edge : copy.edges())
+            assertEquals(graph.getWeight(edge.getSource(), edge.getDestination()), edge.getWeight());
+
+        Graph<String> marked = graph.subGraph("three");
+        assertEquals(num / 3, marked.size());
+        Set<Edge<String>> expected = new HashSet<>();
+        for (Edge<String> edge : graph.edges())
+            if (marked.contains(edge.getSource()) && marked.contains(edge.getDestination()))
+                expected.add(edge);
+        assertEquals(expected, new HashSet<>(marked.edges()));
+        for (String vertex : marked)
+            assertEquals(graph.getMarks(vertex), marked.getMarks(vertex));
+
+        Graph<String> sub = graph.subGraph("0", 2);
+        Set<String> reached = new HashSet<>(List.of("0"));
+        for (String child : graph.getChildren("0")) {
+            reached.add(child);
+            reached.addAll(graph.getChildren(child));
+        }
+        assertEquals(reached, new HashSet<>(sub.vertices()));
+        for (String vertex : sub)
+            assertEquals(sub.getChildren(vertex).size(), graph.getChildren(vertex).stream().filter(reached::contains).count());
+
+        if (graph instanceof GraphDirected<String> directed) {
+            GraphDirected<String> transposed = directed.transpose();
+            assertEquals(directed.numberOfEdges(), transposed.numberOfEdges());
+            for (Edge<String> edge : directed.edges())
+                assertEquals(edge.getWeight(), transposed.getWeight(edge.getDestination(), edge.getSource()));
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("getGraphsDir")
     public void transpose(GraphDirected<String> graph) {
@@ -1294,6 +2577,82 @@ public class TestGraph {
         assertFalse(visitDFS.isDiscovered("6"));
     }
 
+    @ParameterizedTest
+    @MethodSource("getGraphsDir")
+    public void viewsDir(GraphDirected<String> graph) {
+        graph.addAll(List.of("1", "2", "3", "4", "5", "6", "7", "8"));
+
+        graph.addEdge("1", "2", 1);
+        graph.addEdge("1", "3", 1);
+        graph.addEdge("2", "5", 4);
+        graph.addEdge("4", "6", 5);
+        graph.addEdge("5", "3", 6);
+        graph.addEdge("5", "4", 3);
+        graph.addEdge("6", "2", 2);
+        graph.addEdge("7", "8", 8);
+
+        TransposedGraph<String> transposed = graph.transposeView();
+        assertEquals(graph.transpose().edges(), transposed.edges());
+        assertEquals(graph.transpose().edges(), transposed.materialize().edges());
+        assertEquals(graph.getClass(), transposed.materialize().getClass());
+        assertEquals(graph.getAncestors("2"), transposed.getChildren("2"));
+        assertEquals(graph.stronglyConnectedComponents(), transposed.stronglyConnectedComponents());
+        assertEquals(graph.numberOfEdges(), transposed.numberOfEdges());
+        assertEquals(graph.size(), transposed.size());
+
+        transposed.addEdge("3", "1", 9);
+        assertEquals(9, graph.getWeight("1", "3"));
+        graph.addEdge("8", "7", 2);
+        assertEquals(2, transposed.getWeight("7", "8"));
+        graph.removeEdge("8", "7");
+        transposed.removeEdge("3", "1");
+        transposed.addEdge("3", "1", 1);
+
+        FilteredGraph<String> filtered = graph.subGraphView(v -> !v.equals("5"));
+        assertEquals(7, filtered.size());
+        assertFalse(filtered.contains("5"));
+        assertTrue(filtered.contains("4"));
+        shouldContain(filtered.vertices(), "1", "2", "3", "4", "6", "7", "8");
+        shouldContain(filtered.getChildren("2"));
+        shouldContain(filtered.getAncestors("3"), "1");
+        assertEquals(5, filtered.numberOfEdges());
+        shouldThrow(notException, () -> filtered.getWeight("2", "5"));
+        shouldThrow(illegalException, () -> filtered.add("5"));
+        shouldThrow(illegalException, () -> filtered.batch(b -> b.remove("8").add("5")));
+        assertTrue(graph.contains("8"));
+        assertFalse(filtered.containsEdge("2", "5"));
+
+        List<String> order = new ArrayList<>();
+        List<String> viewOrder = new ArrayList<>();
+        graph.visit("1", new DFS<>(), order::add);
+        graph.subGraphView(_ -> true).visit("1", new DFS<>(), viewOrder::add);
+        assertEquals(order, viewOrder);
+
+        VisitInfo<String> info = filtered.visit("1", new BFS<>(), null);
+        shouldContain(info.getDiscovered(), "1", "2", "3");
+        GraphDirected<String> copy = filtered.materialize();
+        assertEquals(filtered.edges(), copy.edges());
+        assertEquals(graph.getClass(), copy.getClass());
+
+        filtered.addEdge("4", "3", 7);
+        assertEquals(7, graph.getWeight("4", "3"));
+        filtered.remove("4");
+        assertFalse(graph.contains("4"));
+
+        graph.mark("1", "a");
+        graph.mark("2", "a");
+        graph.mark("6", "b");
+        FilteredGraph<String> marked = graph.subGraphView("a");
+        shouldContain(marked.vertices(), "1", "2");
+        assertEquals(graph.subGraph("a").edges(), marked.edges());
+        graph.mark("3", "a");
+        shouldContain(marked.vertices(), "1", "2", "3");
+        assertEquals(graph.subGraph("a").edges(), marked.materialize().edges());
+        shouldContain(graph.subGraphView().vertices(), "5", "7", "8");
+        shouldContain(graph.subGraphView("a", "b").vertices(), "1", "2", "3", "6");
+        shouldThrow(nullException, () -> graph.subGraphView((Predicate<String>) null));
+    }
+
     @ParameterizedTest
     @MethodSource("getGraphsDir")
     public void topologicalSort(GraphDirected<String> graph) {
@@ -1792,8 +3151,15 @@ public class TestGraph {
 
     @SafeVarargs
     private <V> void shouldContainUnDir(Collection<Edge<V>> actual, Edge<V>... expected) {
+        List<Edge<V>> list = new ArrayList<>(expected.length);
+        for (Edge<V> edge : expected)
+            list.add(edge);
+        shouldContainUnDir(actual, list);
+    }
+
+    private <V> void shouldContainUnDir(Collection<Edge<V>> actual, Collection<Edge<V>> expected) {
         assertNotNull(actual, "You should pass me a collection!");
-        assertEquals(expected.length, actual.size(), "They have not the same number of elements\nActual: " + actual);
+        assertEquals(expected.size(), actual.size(), "They have not the same number of elements\nActual: " + actual);
 
         for (Edge<V> edge : expected) {
             Edge<V> found = null;